@@ -0,0 +1,161 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes base64 text directly from a CharSequence, so large content can be decoded from a
+ * buffer without first creating a String. Whitespace is ignored. Encoding writes directly to
+ * a char array for the same reason.
+ */
+class Base64 {
+    private static final int WHITESPACE = -1;
+    private static final int PADDING = -2;
+    private static final int INVALID = -3;
+    private static final int[] DECODE = new int[128];
+    private static final char[] ENCODE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    static {
+        for (int i = 0; i < DECODE.length; i++) {
+            DECODE[i] = INVALID;
+        }
+        for (int i = 0; i < ENCODE.length; i++) {
+            DECODE[ENCODE[i]] = i;
+        }
+        DECODE[' '] = WHITESPACE;
+        DECODE['\t'] = WHITESPACE;
+        DECODE['\r'] = WHITESPACE;
+        DECODE['\n'] = WHITESPACE;
+        DECODE['='] = PADDING;
+    }
+
+    private Base64() {
+    }
+
+    /**
+     * @param text Base64 encoded text
+     * @return The decoded bytes
+     * @throws IllegalArgumentException if the text is not valid base64
+     */
+    static byte[] decode(CharSequence text) {
+        int sextets = 0;
+        boolean padded = false;
+        for (int i = 0; i < text.length(); i++) {
+            int value = valueOf(text.charAt(i));
+            if (value == PADDING) {
+                padded = true;
+            } else if (value >= 0) {
+                if (padded) {
+                    throw new IllegalArgumentException("data after padding");
+                }
+                sextets++;
+            }
+        }
+        if (sextets % 4 == 1) {
+            throw new IllegalArgumentException("truncated");
+        }
+        final byte[] bytes = new byte[sextets * 6 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < text.length() && index < bytes.length; i++) {
+            int value = valueOf(text.charAt(i));
+            if (value >= 0) {
+                buffer = (buffer << 6) | value;
+                bits += 6;
+                if (bits >= 8) {
+                    bits -= 8;
+                    bytes[index++] = (byte) (buffer >> bits);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param text Base64 encoded text
+     * @return Stream decoding the text as it is read. Invalid text is reported as IOException.
+     */
+    static InputStream decodingStream(CharSequence text) {
+        return new DecodingInputStream(text);
+    }
+
+    /**
+     * Encodes up to three bytes as four characters, padded if fewer than three bytes remain
+     * @param bytes Bytes to encode
+     * @param offset Offset of the first of the bytes to encode
+     * @param out Array receiving the characters
+     * @param outOffset Offset of the first character in out
+     */
+    static void encode(byte[] bytes, int offset, char[] out, int outOffset) {
+        final int remaining = bytes.length - offset;
+        int quantum = (bytes[offset] & 0xff) << 16;
+        if (remaining > 1) {
+            quantum |= (bytes[offset + 1] & 0xff) << 8;
+        }
+        if (remaining > 2) {
+            quantum |= bytes[offset + 2] & 0xff;
+        }
+        out[outOffset] = ENCODE[quantum >> 18];
+        out[outOffset + 1] = ENCODE[(quantum >> 12) & 0x3f];
+        out[outOffset + 2] = remaining > 1 ? ENCODE[(quantum >> 6) & 0x3f] : '=';
+        out[outOffset + 3] = remaining > 2 ? ENCODE[quantum & 0x3f] : '=';
+    }
+
+    private static int valueOf(char c) {
+        int value = c < DECODE.length ? DECODE[c] : INVALID;
+        if (value == INVALID) {
+            throw new IllegalArgumentException("invalid character '" + c + "'");
+        }
+        return value;
+    }
+
+    private static class DecodingInputStream extends InputStream {
+        private final CharSequence text;
+        private int position;
+        private int buffer;
+        private int bits;
+
+        DecodingInputStream(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (bits < 8) {
+                if (position >= text.length()) {
+                    return -1;
+                }
+                int value;
+                try {
+                    value = valueOf(text.charAt(position++));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid base64 content: " + e.getMessage());
+                }
+                if (value == PADDING) {
+                    position = text.length();
+                    return -1;
+                }
+                if (value >= 0) {
+                    buffer = (buffer << 6) | value;
+                    bits += 6;
+                }
+            }
+            bits -= 8;
+            return (buffer >> bits) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int count = 0;
+            int value;
+            while (count < len && (value = read()) != -1) {
+                b[off + count++] = (byte) value;
+            }
+            return count == 0 ? -1 : count;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.jdom.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parser decorator which caches results by a SHA-256 hash of the input, so byte-identical
+ * documents are only parsed once. The cache is bounded both by number of entries and by the
+ * total size of the inputs, and evicts the least recently used entries first.
+ *
+ * By default the cached object is returned on the miss which stores it and on every hit, so
+ * callers must not modify it. Override {@link #copy(Object)} to return copies instead.
+ *
+ * Streams are hashed while they are buffered, up to the maximum total size of the cache. Longer
+ * streams are never cached, so the rest of them is passed on to the decorated parser unbuffered.
+ *
+ * Elements are not hashed and are always passed on to the decorated parser.
+ *
+ * @param <T> Class to be parsed from XML
+ */
+public class CachingParser<T> implements Parser<T> {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Parser<T> parser;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, CacheEntry<T>> cache;
+    private long cachedBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        }
+    };
+
+    /**
+     * @param parser Parser doing the actual parsing
+     * @param maxEntries Maximum number of cached results
+     * @param maxBytes Maximum total size of the inputs of the cached results
+     */
+    public CachingParser(Parser<T> parser, int maxEntries, long maxBytes) {
+        if (parser == null) {
+            throw new IllegalArgumentException("Could not create caching parser for null parser");
+        }
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        this.parser = parser;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.cache = new LinkedHashMap<Key, CacheEntry<T>>(16, 0.75f, true);
+    }
+
+    public T parse(String xml) {
+        try {
+            final byte[] bytes = xml.getBytes("UTF-8");
+            final Key key = new Key(digests.get().digest(bytes));
+            T cached = lookup(key);
+            if (cached != null) {
+                return copy(cached);
+            }
+            T result = parser.parse(xml);
+            store(key, result, bytes.length);
+            return result == null ? null : copy(result);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    public T parse(InputStream stream) {
+        final MessageDigest digest = digests.get();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+                if (bytes.size() > maxBytes) {
+                    digest.reset();
+                    misses.incrementAndGet();
+                    return parser.parse(new SequenceInputStream(new ByteArrayInputStream(bytes.toByteArray()), stream));
+                }
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            digest.reset();
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+        final Key key = new Key(digest.digest());
+        T cached = lookup(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+        T result = parser.parse(new ByteArrayInputStream(bytes.toByteArray()));
+        store(key, result, bytes.size());
+        return result == null ? null : copy(result);
+    }
+
+    public T parse(Element element) {
+        return parser.parse(element);
+    }
+
+    public ParserPlan explain() {
+        return parser.explain();
+    }
+
+    /**
+     * Called with the cached object whenever it is returned, both on the miss storing it and on every hit
+     * @param cached The cached object
+     * @return The object returned to the caller, the cached object itself by default
+     */
+    protected T copy(T cached) {
+        return cached;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    private synchronized T lookup(Key key) {
+        CacheEntry<T> entry = cache.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    private synchronized void store(Key key, T value, long weight) {
+        if (value == null || weight > maxBytes) {
+            return;
+        }
+        CacheEntry<T> previous = cache.put(key, new CacheEntry<T>(value, weight));
+        if (previous != null) {
+            cachedBytes -= previous.weight;
+        }
+        cachedBytes += weight;
+        Iterator<Map.Entry<Key, CacheEntry<T>>> eldest = cache.entrySet().iterator();
+        while (cache.size() > maxEntries || cachedBytes > maxBytes) {
+            cachedBytes -= eldest.next().getValue().weight;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class CacheEntry<T> {
+        private final T value;
+        private final long weight;
+
+        CacheEntry(T value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static class Key {
+        private final byte[] digest;
+        private final int hashCode;
+
+        Key(byte[] digest) {
+            this.digest = digest;
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.annotation.XmlSubtypes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Finds classes with XPath annotated fields, including inherited fields, constructor parameters or
+ * subtypes in a package and its sub packages, in directories and jar files on the class path
+ */
+class ClassScanner {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private ClassScanner() {
+    }
+
+    static List<Class<?>> findAnnotatedClasses(String packageName, ClassLoader classLoader) throws IOException {
+        final String path = packageName.replace('.', '/');
+        final List<String> classNames = new ArrayList<String>();
+        Enumeration<URL> resources = classLoader.getResources(path);
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            if ("file".equals(resource.getProtocol())) {
+                findInDirectory(new File(decode(resource.getFile())), packageName, classNames);
+            } else {
+                URLConnection connection = resource.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    findInJar(((JarURLConnection) connection).getJarFile(), path, classNames);
+                }
+            }
+        }
+
+        final List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (String className : classNames) {
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (hasXPathFields(clazz)) {
+                    classes.add(clazz);
+                }
+            } catch (ClassNotFoundException ignore) {
+            } catch (LinkageError ignore) {
+            }
+        }
+        return classes;
+    }
+
+    private static boolean hasXPathFields(Class<?> clazz) {
+        if (clazz.isInterface() || clazz.isAnonymousClass() || clazz.isLocalClass()) {
+            return false;
+        }
+        if (clazz.isAnnotationPresent(XmlSubtypes.class)) {
+            return true;
+        }
+        if (Modifier.isAbstract(clazz.getModifiers())) {
+            return false;
+        }
+        if (!ParserFactory.xPathFields(clazz).isEmpty()) {
+            return true;
+        }
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            for (Annotation[] annotations : constructor.getParameterAnnotations()) {
+                for (Annotation annotation : annotations) {
+                    if (annotation instanceof XPath) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void findInDirectory(File directory, String packageName, List<String> classNames) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findInDirectory(file, packageName + "." + file.getName(), classNames);
+            } else if (file.getName().endsWith(CLASS_SUFFIX)) {
+                classNames.add(packageName + "." + file.getName().substring(0, file.getName().length() - CLASS_SUFFIX.length()));
+            }
+        }
+    }
+
+    private static void findInJar(JarFile jar, String path, List<String> classNames) {
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(path + "/") && name.endsWith(CLASS_SUFFIX)) {
+                classNames.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+            }
+        }
+    }
+
+    private static String decode(String path) {
+        try {
+            return URLDecoder.decode(path, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Opens possibly compressed XML for parsing. Gzip and zlib (deflate) input is detected from its
+ * header and decompressed on a helper thread, so decompression overlaps with parsing:
+ *
+ *     parser.parse(CompressedInput.open(new FileInputStream("feed.xml.gz")));
+ */
+public final class CompressedInput {
+    public static final int DEFAULT_BUFFERS = 8;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Opens a stream with the default number and size of buffers
+     * @see #open(java.io.InputStream, int, int)
+     */
+    public static InputStream open(InputStream stream) throws IOException {
+        return open(stream, DEFAULT_BUFFERS, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a stream, decompressing it on a helper thread if it is gzip or zlib compressed
+     * @param stream Possibly compressed input
+     * @param buffers Number of decompressed buffers the helper thread may fill ahead of the reader
+     * @param bufferSize Size of each buffer
+     * @return Stream of uncompressed input. Closing it stops the helper thread and closes the input.
+     * @throws IOException if the header of the input could not be read
+     */
+    public static InputStream open(InputStream stream, int buffers, int bufferSize) throws IOException {
+        if (buffers < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Number and size of buffers must be positive");
+        }
+        PushbackInputStream pushback = new PushbackInputStream(stream, 2);
+        byte[] header = new byte[2];
+        int length = 0;
+        int read;
+        while (length < header.length && (read = pushback.read(header, length, header.length - length)) != -1) {
+            length += read;
+        }
+        pushback.unread(header, 0, length);
+        if (length < header.length) {
+            return pushback;
+        }
+        int first = header[0] & 0xff;
+        int second = header[1] & 0xff;
+        if (first == 0x1f && second == 0x8b) {
+            return new PipelinedInputStream(new GZIPInputStream(pushback, bufferSize), buffers, bufferSize);
+        }
+        if ((first & 0x0f) == 8 && (first >> 4) <= 7 && ((first << 8) | second) % 31 == 0) {
+            return new PipelinedInputStream(new InflaterInputStream(pushback), buffers, bufferSize);
+        }
+        return pushback;
+    }
+}
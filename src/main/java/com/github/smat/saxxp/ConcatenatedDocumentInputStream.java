@@ -0,0 +1,217 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * View of a stream of back to back XML documents, which reads as one document at a time. A new
+ * document starts at each XML declaration after the start of the current document, except inside
+ * CDATA sections and comments. A byte order mark before a declaration belongs to the document
+ * it starts.
+ *
+ * Closing the view does not close the source, since XML parsers close their input when done.
+ */
+class ConcatenatedDocumentInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final byte[] DECLARATION = {'<', '?', 'x', 'm', 'l'};
+    private static final byte[] CDATA_START = {'<', '!', '[', 'C', 'D', 'A', 'T', 'A', '['};
+    private static final byte[] CDATA_END = {']', ']', '>'};
+    private static final byte[] COMMENT_START = {'<', '!', '-', '-'};
+    private static final byte[] COMMENT_END = {'-', '-', '>'};
+    private static final byte[] BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+    private static final int LOOKAHEAD = CDATA_START.length;
+
+    private final InputStream source;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int readableEnd;
+    private int documentStart = -1;
+    private boolean sourceEnd;
+    private boolean documentEnd = true;
+    /** End of the CDATA section or comment being scanned, or null outside them */
+    private byte[] sectionEnd;
+
+    ConcatenatedDocumentInputStream(InputStream source) {
+        this.source = source;
+    }
+
+    /**
+     * @return true if there is more than whitespace after the current document
+     */
+    boolean hasNextDocument() throws IOException {
+        skipDocument();
+        while (true) {
+            while (position < limit) {
+                if (!isWhitespace(buffer[position])) {
+                    return true;
+                }
+                position++;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of the current document, and starts reading the next
+     */
+    void nextDocument() throws IOException {
+        if (!hasNextDocument()) {
+            throw new IOException("No more documents in stream");
+        }
+        while (limit - position < BOM.length && fill()) {
+        }
+        documentEnd = false;
+        sectionEnd = null;
+        documentStart = startsWith(position, BOM) ? position + BOM.length : position;
+    }
+
+    void closeSource() throws IOException {
+        source.close();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (readable() < 0) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int readable = readable();
+        if (readable < 0) {
+            return -1;
+        }
+        int count = Math.min(len, readable);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void skipDocument() throws IOException {
+        int readable;
+        while ((readable = readable()) > 0) {
+            position += readable;
+        }
+    }
+
+    /**
+     * @return Number of buffered bytes which belong to the current document, or -1 at the end of the document
+     */
+    private int readable() throws IOException {
+        if (position < readableEnd) {
+            return readableEnd - position;
+        }
+        while (!documentEnd) {
+            int end = limit;
+            boolean declaration = false;
+            for (int i = position; i < limit; i++) {
+                if (sectionEnd != null) {
+                    if (buffer[i] == sectionEnd[0]) {
+                        if (i + sectionEnd.length > limit && !sourceEnd) {
+                            end = i;
+                            break;
+                        }
+                        if (startsWith(i, sectionEnd)) {
+                            i += sectionEnd.length - 1;
+                            sectionEnd = null;
+                        }
+                    }
+                } else if (buffer[i] == '<') {
+                    if (i + LOOKAHEAD > limit && !sourceEnd) {
+                        end = i;
+                        break;
+                    }
+                    if (startsWith(i, CDATA_START)) {
+                        i += CDATA_START.length - 1;
+                        sectionEnd = CDATA_END;
+                    } else if (startsWith(i, COMMENT_START)) {
+                        i += COMMENT_START.length - 1;
+                        sectionEnd = COMMENT_END;
+                    } else if (i != documentStart && isDeclaration(i)) {
+                        end = i;
+                        declaration = true;
+                        break;
+                    }
+                } else if (buffer[i] == BOM[0]) {
+                    // held back like '<', so a byte order mark is never read as the end of the previous document
+                    if (i + BOM.length + LOOKAHEAD > limit && !sourceEnd) {
+                        end = i;
+                        break;
+                    }
+                    if (i + BOM.length != documentStart && startsWith(i, BOM) && isDeclaration(i + BOM.length)) {
+                        end = i;
+                        declaration = true;
+                        break;
+                    }
+                }
+            }
+            if (end > position) {
+                readableEnd = end;
+                return end - position;
+            }
+            if (declaration || sourceEnd) {
+                documentEnd = true;
+            } else {
+                fill();
+            }
+        }
+        return -1;
+    }
+
+    private boolean isDeclaration(int index) {
+        return startsWith(index, DECLARATION) && index + DECLARATION.length < limit
+                && isWhitespace(buffer[index + DECLARATION.length]);
+    }
+
+    private boolean startsWith(int index, byte[] bytes) {
+        if (index + bytes.length > limit) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer[index + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves unread bytes to the start of the buffer and reads more from the source
+     * @return false if the source has no more bytes
+     */
+    private boolean fill() throws IOException {
+        if (sourceEnd) {
+            return false;
+        }
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            documentStart -= position;
+            readableEnd -= position;
+            position = 0;
+        }
+        int read = source.read(buffer, limit, buffer.length - limit);
+        if (read == -1) {
+            sourceEnd = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.SaxxpException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a stream of complete XML documents written back to back, like a message log,
+ * parsing one document for each call to {@link #next()}. Every document except the first must
+ * start with an XML declaration, which is where the stream is split. Declarations inside CDATA
+ * sections and comments do not split the stream, and documents may start with a UTF-8 byte order
+ * mark. The stream must use an ASCII compatible encoding.
+ *
+ * The read buffer is reused for all documents, and parsers created by {@link ParserFactory}
+ * reuse their XML reader between documents parsed on the same thread.
+ *
+ * @param <T> Class to be parsed from each document
+ */
+public class DocumentIterator<T> implements Iterator<T> {
+    private final Parser<T> parser;
+    private final ConcatenatedDocumentInputStream documents;
+
+    /**
+     * @param parser Parser for each document
+     * @param stream Stream of XML documents
+     */
+    public DocumentIterator(Parser<T> parser, InputStream stream) {
+        if (parser == null || stream == null) {
+            throw new IllegalArgumentException("Could not iterate documents without parser and stream");
+        }
+        this.parser = parser;
+        this.documents = new ConcatenatedDocumentInputStream(stream);
+    }
+
+    public boolean hasNext() {
+        try {
+            return documents.hasNextDocument();
+        } catch (IOException e) {
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more documents in stream");
+        }
+        try {
+            documents.nextDocument();
+        } catch (IOException e) {
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+        return parser.parse(documents);
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Documents can not be removed from a stream");
+    }
+
+    /**
+     * Closes the underlying stream
+     */
+    public void close() {
+        try {
+            documents.closeSource();
+        } catch (IOException e) {
+            throw new SaxxpException("Could not close XML stream", e);
+        }
+    }
+}
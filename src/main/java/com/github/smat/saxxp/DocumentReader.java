@@ -0,0 +1,143 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.DOMBuilder;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Builds documents for the parsers of a {@link ParserFactory} from streams, with one reusable builder
+ * per thread, and copies W3C DOM trees and StAX events to JDOM without serializing them to text
+ */
+class DocumentReader {
+    static final int DEFAULT_LARGE_TEXT_THRESHOLD = 1024 * 1024;
+
+    private static final DOMBuilder DOM_BUILDER = new DOMBuilder();
+
+    private final Limits limits;
+    private volatile int largeTextThreshold = DEFAULT_LARGE_TEXT_THRESHOLD;
+    private final ThreadLocal<SaxxpBuilder> builders = new ThreadLocal<SaxxpBuilder>() {
+        @Override
+        protected SaxxpBuilder initialValue() {
+            return new SaxxpBuilder(DocumentReader.this);
+        }
+    };
+
+    DocumentReader(Limits limits) {
+        this.limits = limits;
+    }
+
+    Limits getLimits() {
+        return limits;
+    }
+
+    int getLargeTextThreshold() {
+        return largeTextThreshold;
+    }
+
+    void setLargeTextThreshold(int largeTextThreshold) {
+        if (largeTextThreshold < 1) {
+            throw new IllegalArgumentException("Large text threshold must be positive");
+        }
+        this.largeTextThreshold = largeTextThreshold;
+    }
+
+    Document build(InputStream stream) {
+        SaxxpBuilder builder = builders.get();
+        try {
+            return builder.build(new LimitedInputStream(stream, limits));
+        } catch (RuntimeException e) {
+            builder.discard();
+            throw e;
+        } catch (JDOMException e) {
+            builder.discard();
+            throw new SaxxpException("Could not parse input XML", e);
+        } catch (IOException e) {
+            builder.discard();
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+    }
+
+    /**
+     * Copies a W3C DOM tree to JDOM, after checking it against the limits
+     * @param node A Document, or an Element which is evaluated as if it was the root of its own document
+     * @return The Document or Element to evaluate XPaths against
+     */
+    Object build(org.w3c.dom.Node node) {
+        if (node instanceof org.w3c.dom.Document || node instanceof org.w3c.dom.Element) {
+            count(node, new LimitCounter(limits));
+        }
+        if (node instanceof org.w3c.dom.Document) {
+            return DOM_BUILDER.build((org.w3c.dom.Document) node);
+        }
+        if (node instanceof org.w3c.dom.Element) {
+            return DOM_BUILDER.build((org.w3c.dom.Element) node);
+        }
+        throw new IllegalArgumentException("Could not parse DOM node of type " + (node == null ? null : node.getNodeType()));
+    }
+
+    /**
+     * Counts the elements and text of a DOM tree in document order, without recursion
+     */
+    private static void count(org.w3c.dom.Node root, LimitCounter counter) {
+        org.w3c.dom.Node node = root;
+        while (true) {
+            short type = node.getNodeType();
+            if (type == org.w3c.dom.Node.ELEMENT_NODE) {
+                counter.startElement();
+            } else if (type == org.w3c.dom.Node.TEXT_NODE || type == org.w3c.dom.Node.CDATA_SECTION_NODE) {
+                counter.text(node.getNodeValue().length());
+            }
+            org.w3c.dom.Node child = node.getFirstChild();
+            if (child != null) {
+                node = child;
+                continue;
+            }
+            while (true) {
+                if (node.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE) {
+                    counter.endElement();
+                }
+                if (node == root) {
+                    return;
+                }
+                if (node.getNextSibling() != null) {
+                    node = node.getNextSibling();
+                    break;
+                }
+                node = node.getParentNode();
+            }
+        }
+    }
+
+    /**
+     * Reads the document or element a StAX reader is positioned on, within the limits
+     * @param reader Reader positioned on START_DOCUMENT or START_ELEMENT. It is left on the matching
+     * END_ELEMENT event, so a reader can be positioned on each of a sequence of elements in turn.
+     * @return The Document or Element to evaluate XPaths against
+     */
+    Object build(XMLStreamReader reader) {
+        LimitCounter counter = new LimitCounter(limits);
+        try {
+            if (reader.getEventType() == XMLStreamConstants.START_DOCUMENT) {
+                while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    if (reader.getEventType() == XMLStreamConstants.END_DOCUMENT) {
+                        throw new SaxxpException("XML stream does not contain a root element");
+                    }
+                }
+                return new Document(StaxElementBuilder.build(reader, counter));
+            }
+            Element element = StaxElementBuilder.build(reader, counter);
+            new Document(element);
+            return element;
+        } catch (XMLStreamException e) {
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.smat.saxxp;
+
+/**
+ * A field which could not be parsed in lenient mode
+ */
+public class FieldError {
+    private final String field;
+    private final String xPath;
+    private final String text;
+    private final String reason;
+
+    public FieldError(String field, String xPath, String text, String reason) {
+        this.field = field;
+        this.xPath = xPath;
+        this.text = text;
+        this.reason = reason;
+    }
+
+    /** @return Name of the field */
+    public String getField() {
+        return field;
+    }
+
+    /** @return XPath selecting the value of the field */
+    public String getXPath() {
+        return xPath;
+    }
+
+    /** @return The text which could not be parsed */
+    public String getText() {
+        return text;
+    }
+
+    /** @return Why the text could not be parsed */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return field + " (" + xPath + "): '" + text + "' " + reason;
+    }
+}
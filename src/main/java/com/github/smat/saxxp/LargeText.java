@@ -0,0 +1,46 @@
+package com.github.smat.saxxp;
+
+import org.jdom.Text;
+
+import java.nio.CharBuffer;
+
+/**
+ * Text node whose content is kept outside the heap instead of in a String. The String is only
+ * created if the text is requested as a String, so fields bound as byte[], InputStream, Reader
+ * or CharSequence never hold the whole content as a String.
+ */
+class LargeText extends Text {
+    private static final long serialVersionUID = 1L;
+
+    private final CharSequence content;
+
+    /**
+     * @param content Text which is not changed, except for the position of a buffer
+     */
+    LargeText(CharSequence content) {
+        super();
+        this.content = content;
+    }
+
+    /**
+     * @return Read-only view of the content
+     */
+    CharSequence getContent() {
+        return content instanceof CharBuffer ? ((CharBuffer) content).duplicate() : content;
+    }
+
+    @Override
+    public String getText() {
+        return getContent().toString();
+    }
+
+    @Override
+    public String getValue() {
+        return getText();
+    }
+
+    @Override
+    public String toString() {
+        return "[LargeText: " + content.length() + " characters]";
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
+
+/**
+ * Counts the depth, elements and text of a document while it is built, and fails as soon as one of
+ * the limits of a {@link ParserFactory} is exceeded. Text is counted from one tag to the next, so
+ * comments, CDATA sections and entities splitting the text do not restart the count.
+ */
+class LimitCounter {
+    private final Limits limits;
+    private final long maxDepth;
+    private final long maxElements;
+    private final long maxTextLength;
+    private long textLength;
+    private int depth;
+    private long elements;
+
+    LimitCounter(Limits limits) {
+        this.limits = limits;
+        this.maxDepth = limits.get(Limit.DEPTH);
+        this.maxElements = limits.get(Limit.ELEMENTS);
+        this.maxTextLength = limits.get(Limit.TEXT_LENGTH);
+    }
+
+    void startElement() {
+        if (++depth > maxDepth) {
+            throw limits.exceeded(Limit.DEPTH);
+        }
+        if (++elements > maxElements) {
+            throw limits.exceeded(Limit.ELEMENTS);
+        }
+        textLength = 0;
+    }
+
+    void endElement() {
+        depth--;
+        textLength = 0;
+    }
+
+    /**
+     * Counts text since the last tag
+     * @param length Number of characters
+     */
+    void text(long length) {
+        textLength += length;
+        if (textLength > maxTextLength) {
+            throw limits.exceeded(Limit.TEXT_LENGTH);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a stream, and fails the read which passes the input byte limit
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final Limits limits;
+    private final long maximum;
+    private long count;
+
+    LimitedInputStream(InputStream in, Limits limits) {
+        super(in);
+        this.limits = limits;
+        this.maximum = limits.get(Limit.INPUT_BYTES);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value != -1) {
+            count(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long bytes) {
+        count += bytes;
+        if (count > maximum) {
+            throw limits.exceeded(Limit.INPUT_BYTES);
+        }
+    }
+}
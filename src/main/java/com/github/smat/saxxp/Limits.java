@@ -0,0 +1,46 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.LimitExceededException;
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Limits on input to the parsers of a {@link ParserFactory}, and counts of rejected input by limit.
+ * Every limit is unbounded by default. Both are indexed by the ordinal of the limit, so they can be
+ * read by parsing threads without locking.
+ */
+class Limits {
+    private final AtomicLongArray maximums = new AtomicLongArray(Limit.values().length);
+    private final AtomicLongArray rejections = new AtomicLongArray(Limit.values().length);
+
+    Limits() {
+        for (Limit limit : Limit.values()) {
+            maximums.set(limit.ordinal(), Long.MAX_VALUE);
+        }
+    }
+
+    long get(Limit limit) {
+        return maximums.get(limit.ordinal());
+    }
+
+    void set(Limit limit, long maximum) {
+        if (maximum < 1) {
+            throw new IllegalArgumentException("Limit " + limit + " must be positive");
+        }
+        maximums.set(limit.ordinal(), maximum);
+    }
+
+    long getRejections(Limit limit) {
+        return rejections.get(limit.ordinal());
+    }
+
+    /**
+     * Counts a rejection
+     * @return Exception to throw for the rejection
+     */
+    LimitExceededException exceeded(Limit limit) {
+        rejections.incrementAndGet(limit.ordinal());
+        return new LimitExceededException(limit, get(limit));
+    }
+}
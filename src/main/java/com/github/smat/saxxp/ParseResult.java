@@ -0,0 +1,32 @@
+package com.github.smat.saxxp;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a lenient parse: the parsed object along with the fields which could not be parsed.
+ * Fields with errors are left with their default values.
+ *
+ * @param <T> Class parsed from XML
+ */
+public class ParseResult<T> {
+    private final T value;
+    private final List<FieldError> errors;
+
+    public ParseResult(T value, List<FieldError> errors) {
+        this.value = value;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public List<FieldError> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
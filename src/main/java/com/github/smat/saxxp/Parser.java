@@ -5,6 +5,7 @@ import org.jdom.Element;
 import java.io.InputStream;
 
 /**
+ * Parsers created by {@link ParserFactory} are thread-safe, and one instance can be shared by all threads.
  *
  * @param <T> Class to be parsed from XML
  */
@@ -30,4 +31,12 @@ public interface Parser<T> {
      * @return
      */
     public T parse(Element element);
+    /** Describes the fields set by the parser, how they are converted and the estimated cost of their XPaths
+     *
+     * @throws UnsupportedOperationException if the parser does not describe its plan
+     * @return Plan of the parser, printable as a tree with toString()
+     */
+    public default ParserPlan explain() {
+        throw new UnsupportedOperationException("Parser " + getClass().getName() + " does not describe its plan");
+    }
 }
\ No newline at end of file
@@ -2,19 +2,42 @@ package com.github.smat.saxxp;
 
 import com.github.smat.saxxp.annotation.XPath;
 import com.github.smat.saxxp.annotation.XmlEnumIdentifier;
+import com.github.smat.saxxp.annotation.XmlSubtype;
+import com.github.smat.saxxp.annotation.XmlSubtypes;
+import com.github.smat.saxxp.exception.FieldParseException;
+import com.github.smat.saxxp.exception.LimitExceededException;
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
 import com.github.smat.saxxp.exception.SaxxpException;
+import org.apache.commons.io.input.CharSequenceReader;
 import org.apache.commons.lang.StringUtils;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.JDOMException;
-import org.jdom.input.SAXBuilder;
 
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
 
 import static org.apache.commons.io.IOUtils.toInputStream;
 
@@ -22,14 +45,94 @@ import static org.apache.commons.io.IOUtils.toInputStream;
  * Factory to create XML Parsers
  */
 public class ParserFactory {
+    private static final String WARM_UP_XML = "<saxxp-warm-up/>";
+
     private final PrimitiveFieldParserFactory primitiveFieldParserFactory;
+    /** Parsers by the class they parse */
+    private final ConcurrentMap<Class<?>, ParserImpl<?>> parsers = new ConcurrentHashMap<Class<?>, ParserImpl<?>>();
+    /** Writers by the class they write */
+    private final ConcurrentMap<Class<?>, XmlWriterImpl<?>> writers = new ConcurrentHashMap<Class<?>, XmlWriterImpl<?>>();
+    /** Writers being built by a thread, which are added to writers when the outermost of them is built */
+    private final ThreadLocal<Map<Class<?>, XmlWriterImpl<?>>> buildingWriters = new ThreadLocal<Map<Class<?>, XmlWriterImpl<?>>>() {
+        @Override
+        protected Map<Class<?>, XmlWriterImpl<?>> initialValue() {
+            return new HashMap<Class<?>, XmlWriterImpl<?>>();
+        }
+    };
+    private final Limits limits = new Limits();
+    private final DocumentReader documentReader = new DocumentReader(limits);
 
     public ParserFactory() {
         primitiveFieldParserFactory = new PrimitiveFieldParserFactory();
     }
 
     /**
-     * Creates a new parser
+     * Sets the length of text above which the text of an element is kept in a memory-mapped temporary
+     * file instead of in a String. Such text is only turned into a String if it is bound to a String
+     * field, so byte[], InputStream, Reader and CharSequence fields can hold large content cheaply.
+     * @param chars Number of characters, one million by default
+     */
+    public void setLargeTextThreshold(int chars) {
+        documentReader.setLargeTextThreshold(chars);
+    }
+
+    /**
+     * Limits the number of bytes read from a stream by a parser
+     * @param bytes Maximum number of bytes, unlimited by default
+     */
+    public void setMaxInputBytes(long bytes) {
+        limits.set(Limit.INPUT_BYTES, bytes);
+    }
+
+    /**
+     * Limits how deep elements can be nested in a document read by a parser
+     * @param depth Maximum depth, where the root element is at depth 1. Unlimited by default.
+     */
+    public void setMaxDepth(int depth) {
+        limits.set(Limit.DEPTH, depth);
+    }
+
+    /**
+     * Limits the number of elements in a document read by a parser
+     * @param elements Maximum number of elements, unlimited by default
+     */
+    public void setMaxElements(long elements) {
+        limits.set(Limit.ELEMENTS, elements);
+    }
+
+    /**
+     * Limits the number of elements a List or array field can be parsed from
+     * @param length Maximum length, unlimited by default
+     */
+    public void setMaxListLength(int length) {
+        limits.set(Limit.LIST_LENGTH, length);
+    }
+
+    /**
+     * Limits the length of text between two tags in a document read by a parser. Comments, CDATA
+     * sections and entities inside the text do not split it.
+     * @param chars Maximum number of characters, unlimited by default
+     */
+    public void setMaxTextLength(long chars) {
+        limits.set(Limit.TEXT_LENGTH, chars);
+    }
+
+    /**
+     * Input exceeding a limit is rejected with a {@link LimitExceededException} as soon as the limit
+     * is passed. The depth, element and text length limits apply to all input except JDOM elements, the
+     * input byte limit to streams and Strings, and the list length limit to all input.
+     * @param limit The limit
+     * @return Number of times input has been rejected for exceeding the limit
+     */
+    public long getRejections(Limit limit) {
+        return limits.getRejections(limit);
+    }
+
+    /**
+     * Creates a new parser. Parsers are thread-safe, and are reused for later requests for the same class.
+     * Objects are created with the default constructor and their XPath annotated fields are set, or with
+     * the public constructor whose parameters are all XPath annotated, which for a record is its canonical
+     * constructor. Non-final XPath annotated fields are set also when a constructor is used.
      * @param clazz The class to be parsed
      * @param <T> The class to be parsed
      * @return Parser
@@ -38,100 +141,449 @@ public class ParserFactory {
         if (clazz == null) {
             throw new IllegalArgumentException("Could not create parser for null class");
         }
-        final List<FieldParser> parseableElements = new ArrayList<FieldParser>();
+        ParserImpl<T> parser = parserOf(clazz, parsers.get(clazz));
+        if (parser == null) {
+            parser = buildXmlParser(clazz);
+            ParserImpl<T> existing = parserOf(clazz, parsers.putIfAbsent(clazz, parser));
+            if (existing != null) {
+                parser = existing;
+            }
+        }
+        return parser;
+    }
 
-        for (Field iteratorField : clazz.getDeclaredFields()) {
-            if (iteratorField.isAnnotationPresent(XPath.class)) {
-                try {
-                    final XPath annotation = iteratorField.getAnnotation(XPath.class);
-                    final org.jdom.xpath.XPath xPath = org.jdom.xpath.XPath.newInstance(annotation.value());
-                    iteratorField.setAccessible(true);
+    @SuppressWarnings("unchecked")
+    private static <T> ParserImpl<T> parserOf(Class<T> clazz, ParserImpl<?> parser) {
+        return (ParserImpl<T>) parser;
+    }
 
-                    FieldParser fieldParser = primitiveFieldParserFactory.createFieldParser(iteratorField, xPath);
-                    if (fieldParser != null) {
-                        parseableElements.add(fieldParser);
+    private <T> ParserImpl<T> buildXmlParser(Class<T> clazz) {
+        final Constructor<T> constructor = findXPathConstructor(clazz);
+        final List<FieldParser> parameterParsers = new ArrayList<FieldParser>();
+        if (constructor != null) {
+            final Class<?>[] types = constructor.getParameterTypes();
+            final Type[] genericTypes = constructor.getGenericParameterTypes();
+            final Annotation[][] annotations = constructor.getParameterAnnotations();
+            for (int i = 0; i < types.length; i++) {
+                XPath annotation = null;
+                for (Annotation parameterAnnotation : annotations[i]) {
+                    if (parameterAnnotation instanceof XPath) {
+                        annotation = (XPath) parameterAnnotation;
                     }
-                    else if (iteratorField.getType().isEnum()) {
-                        Field identifierField = null;
-                        for (Field enumField : iteratorField.getType().getDeclaredFields()) {
-                            enumField.setAccessible(true);
-                            if (enumField.isAnnotationPresent(XmlEnumIdentifier.class)) {
-                                identifierField = enumField;
-                            }
-                        }
-                        if (identifierField == null) {
-                            throw new IllegalArgumentException("Enum does not contains @XmlEnumIdentifier annotation");
-                        }
-                        final Field enumIdentifier = identifierField;
-                        parseableElements.add(new EnumFieldParser(iteratorField, xPath, enumIdentifier));
-                    }
-                    else if (iteratorField.getType().isArray()) {
-                        parseableElements.add(new ArrayFieldParser(iteratorField, xPath, iteratorField.getType().getComponentType()));
+                }
+                FieldParser parameterParser = createFieldParser(Slot.VALUE, types[i], genericTypes[i], annotation);
+                if (parameterParser == null) {
+                    throw new IllegalArgumentException("Parameter " + i + " of constructor " + constructor + " has a type which can not be parsed");
+                }
+                parameterParser.name = "parameter " + i;
+                parameterParsers.add(parameterParser);
+            }
+        }
+
+        final List<FieldParser> parseableElements = new ArrayList<FieldParser>();
+        for (Field iteratorField : xPathFields(clazz)) {
+            if (constructor != null && Modifier.isFinal(iteratorField.getModifiers())) {
+                // set by the constructor, as for the components of a record
+                continue;
+            }
+            iteratorField.setAccessible(true);
+            FieldParser fieldParser = createFieldParser(iteratorField, iteratorField.getType(), iteratorField.getGenericType(), iteratorField.getAnnotation(XPath.class));
+            if (fieldParser != null) {
+                parseableElements.add(fieldParser);
+            }
+        }
+
+        String subtypeAttribute = null;
+        Map<String, ParserImpl<? extends T>> subtypes = null;
+        final XmlSubtypes subtypesAnnotation = clazz.getAnnotation(XmlSubtypes.class);
+        if (subtypesAnnotation != null) {
+            subtypeAttribute = subtypesAnnotation.attribute().length() > 0 ? subtypesAnnotation.attribute() : null;
+            subtypes = new HashMap<String, ParserImpl<? extends T>>();
+            for (XmlSubtype subtype : subtypesAnnotation.value()) {
+                if (subtype.type() == clazz || !clazz.isAssignableFrom(subtype.type())) {
+                    throw new IllegalArgumentException("Subtype " + subtype.type().getName() + " is not a subclass of " + clazz.getName());
+                }
+                if (subtypes.put(subtype.name(), (ParserImpl<? extends T>) createXmlParser(subtype.type().asSubclass(clazz))) != null) {
+                    throw new IllegalArgumentException("Subtype name '" + subtype.name() + "' is used more than once in " + clazz.getName());
+                }
+            }
+        }
+
+        return new ParserImpl<T>(clazz, constructor, parameterParsers, parseableElements, subtypeAttribute, subtypes, documentReader);
+    }
+
+    /**
+     * @return The XPath annotated fields of a class and its superclasses, starting with the fields of the topmost superclass
+     */
+    static List<Field> xPathFields(Class<?> clazz) {
+        final List<Field> fields = new ArrayList<Field>();
+        if (clazz.getSuperclass() != null) {
+            fields.addAll(xPathFields(clazz.getSuperclass()));
+        }
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.isAnnotationPresent(XPath.class)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @param target Field set by the parser
+     * @param type Type of the value, which for a constructor parameter is not the type of the target
+     * @param genericType Generic type of the value
+     * @return The parser, or null if values of the type can not be parsed
+     */
+    private FieldParser createFieldParser(Field target, Class<?> type, Type genericType, XPath annotation) {
+        final org.jdom.xpath.XPath xPath;
+        try {
+            xPath = org.jdom.xpath.XPath.newInstance(annotation.value());
+        } catch (JDOMException e) {
+            throw new IllegalArgumentException("Error createing XPath, invalid expression", e);
+        }
+
+        FieldParser fieldParser = primitiveFieldParserFactory.createFieldParser(target, xPath, type);
+        if (fieldParser != null) {
+            return fieldParser;
+        }
+        else if (type.isEnum()) {
+            Field identifierField = null;
+            for (Field enumField : type.getDeclaredFields()) {
+                enumField.setAccessible(true);
+                if (enumField.isAnnotationPresent(XmlEnumIdentifier.class)) {
+                    identifierField = enumField;
+                }
+            }
+            if (identifierField == null) {
+                throw new IllegalArgumentException("Enum does not contains @XmlEnumIdentifier annotation");
+            }
+            return new EnumFieldParser(target, xPath, type, identifierField);
+        }
+        else if (type.isArray()) {
+            return new ArrayFieldParser(target, xPath, type.getComponentType());
+        }
+        else if (List.class.isAssignableFrom(type)) {
+            if (genericType instanceof ParameterizedType) {
+                Type[] generics = ((ParameterizedType) genericType).getActualTypeArguments();
+                if (generics.length >= 1) {
+                    return new ListFieldParser(target, xPath, (Class) generics[0]);
+                }
+            }
+            else {
+                throw new IllegalArgumentException("List does not have a defined generic type");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The public constructor with XPath annotated parameters, or null if the class is parsed
+     * by setting the fields of an object created with the default constructor
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Constructor<T> findXPathConstructor(Class<T> clazz) {
+        Constructor<T> found = null;
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            Annotation[][] annotations = constructor.getParameterAnnotations();
+            int annotated = 0;
+            for (Annotation[] parameterAnnotations : annotations) {
+                for (Annotation annotation : parameterAnnotations) {
+                    if (annotation instanceof XPath) {
+                        annotated++;
                     }
-                    else if (List.class.isAssignableFrom(iteratorField.getType())) {
-                        Type genericType = iteratorField.getGenericType();
-                        if (genericType instanceof ParameterizedType) {
-                            ParameterizedType type = (ParameterizedType) genericType;
-                            Type[] generics = type.getActualTypeArguments();
-                            if (generics.length >= 1) {
-                                Class elementClazz = (Class) generics[0];
-                                parseableElements.add(new ListFieldParser(iteratorField, xPath, elementClazz));
-                            }
-                        }
-                        else {
-                            throw new IllegalArgumentException("List does not have a defined generic type");
+                }
+            }
+            if (annotated == 0) {
+                continue;
+            }
+            if (annotated != annotations.length) {
+                throw new IllegalArgumentException("All parameters of constructor " + constructor + " must be annotated with @XPath");
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("Class " + clazz.getName() + " has more than one constructor with @XPath annotated parameters");
+            }
+            found = (Constructor<T>) constructor;
+        }
+        return found;
+    }
+
+    /**
+     * Creates a writer which writes objects to the elements their parser reads. Fields are written in
+     * declaration order, and null values and elements without any values are left out. Writers are
+     * cached, so calling this method again for the same class returns the same writer.
+     * @param clazz The class to be written. Its XPaths must be paths of element names starting with the
+     * same root element, and nested classes of List or array fields must use relative paths, or "." for
+     * the text of their element.
+     * @param <T> The class to be written
+     * @return Writer
+     * @throws IllegalArgumentException if the class has XPaths or fields which can not be written
+     */
+    public <T> XmlWriter<T> createXmlWriter(Class<T> clazz) {
+        if (clazz == null) {
+            throw new IllegalArgumentException("Could not create writer for null class");
+        }
+        XmlWriterImpl<T> writer = getXmlWriter(clazz);
+        writer.checkDocument();
+        return writer;
+    }
+
+    <T> XmlWriterImpl<T> getXmlWriter(Class<T> clazz) {
+        XmlWriterImpl<T> writer = writerOf(clazz, writers.get(clazz));
+        if (writer != null) {
+            return writer;
+        }
+        // a class nested in itself gets the writer which is being built for it
+        final Map<Class<?>, XmlWriterImpl<?>> building = buildingWriters.get();
+        writer = writerOf(clazz, building.get(clazz));
+        if (writer != null) {
+            return writer;
+        }
+        final boolean outermost = building.isEmpty();
+        writer = new XmlWriterImpl<T>(clazz);
+        building.put(clazz, writer);
+        try {
+            writer.addFields(this);
+            if (!outermost) {
+                return writer;
+            }
+            // nested writers are shared only when all writers they refer to are complete
+            for (Map.Entry<Class<?>, XmlWriterImpl<?>> built : building.entrySet()) {
+                writers.putIfAbsent(built.getKey(), built.getValue());
+            }
+        } finally {
+            if (outermost) {
+                building.clear();
+            }
+        }
+        return writerOf(clazz, writers.get(clazz));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> XmlWriterImpl<T> writerOf(Class<T> clazz, XmlWriterImpl<?> writer) {
+        return (XmlWriterImpl<T>) writer;
+    }
+
+    /**
+     * Creates the parsers of all classes with XPath annotated fields in a package and its sub packages
+     * @see #warmUp(java.util.Collection, int, boolean)
+     * @param packageName Package to scan
+     * @param threads Number of threads creating parsers
+     * @param parse true to run a parse of an empty document through each parser
+     * @return Time spent on each class
+     */
+    public WarmUpReport warmUp(String packageName, int threads, boolean parse) {
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader == null) {
+                classLoader = ParserFactory.class.getClassLoader();
+            }
+            return warmUp(ClassScanner.findAnnotatedClasses(packageName, classLoader), threads, parse);
+        } catch (IOException e) {
+            throw new SaxxpException("Could not scan package " + packageName, e);
+        }
+    }
+
+    /**
+     * Creates the parsers of the classes, and the classes used in their fields, in parallel, so
+     * later calls to {@link #createXmlParser(Class)} return immediately
+     * @param classes Classes to create parsers for
+     * @param threads Number of threads creating parsers
+     * @param parse true to run a parse of an empty document through each parser
+     * @return Time spent on each class, and the classes a parser could not be created for
+     */
+    public WarmUpReport warmUp(Collection<Class<?>> classes, int threads, final boolean parse) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Could not warm up with less than one thread");
+        }
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Map<Class<?>, Future<Long>> futures = new LinkedHashMap<Class<?>, Future<Long>>();
+        try {
+            for (final Class<?> clazz : classes) {
+                futures.put(clazz, executor.submit(new Callable<Long>() {
+                    public Long call() {
+                        long classStart = System.nanoTime();
+                        ParserImpl<?> parser = (ParserImpl<?>) createXmlParser(clazz);
+                        if (parse) {
+                            parser.warmUp(WARM_UP_XML);
                         }
+                        return System.nanoTime() - classStart;
                     }
-                } catch (JDOMException e) {
-                    throw new IllegalArgumentException("Error createing XPath, invalid expression", e);
+                }));
+            }
+            final Map<Class<?>, Long> durations = new LinkedHashMap<Class<?>, Long>();
+            final Map<Class<?>, Throwable> failures = new LinkedHashMap<Class<?>, Throwable>();
+            for (Map.Entry<Class<?>, Future<Long>> entry : futures.entrySet()) {
+                try {
+                    durations.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.put(entry.getKey(), e.getCause());
                 }
             }
+            return new WarmUpReport(durations, failures, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SaxxpException("Interrupted while warming up parsers", e);
+        } finally {
+            executor.shutdownNow();
         }
+    }
+
+    /**
+     * Creates a new lenient parser, which collects fields with malformed values as errors in the
+     * result instead of throwing an exception. Malformed XML is still reported by exception.
+     * @param clazz The class to be parsed
+     * @param <T> The class to be parsed
+     * @return Parser
+     */
+    public <T> Parser<ParseResult<T>> createLenientXmlParser(Class<T> clazz) {
+        return new LenientParserImpl<T>((ParserImpl<T>) createXmlParser(clazz));
+    }
 
-        return new ParserImpl<T>(clazz, parseableElements);
+    /**
+     * Creates a parser for W3C DOM trees and StAX readers. It is the parser created by
+     * {@link #createXmlParser(Class)}, so the two share their plan and can be used interchangeably.
+     * @param clazz The class to be parsed
+     * @param <T> The class to be parsed
+     * @return SourceParser
+     */
+    public <T> SourceParser<T> createSourceParser(Class<T> clazz) {
+        return (ParserImpl<T>) createXmlParser(clazz);
+    }
+
+    /**
+     * Creates a lenient parser for W3C DOM trees and StAX readers, which collects fields with malformed
+     * values as errors in the result like {@link #createLenientXmlParser(Class)}
+     * @param clazz The class to be parsed
+     * @param <T> The class to be parsed
+     * @return SourceParser
+     */
+    public <T> SourceParser<ParseResult<T>> createLenientSourceParser(Class<T> clazz) {
+        return new LenientParserImpl<T>((ParserImpl<T>) createXmlParser(clazz));
+    }
+
+    /**
+     * Creates a parser for large files of repeated records, which parses the records in parallel
+     * @param clazz The class to be parsed from each record, with XPaths relative to the record element
+     * @param recordElementName Name of the record element
+     * @param threads Number of worker threads
+     * @param <T> The class to be parsed from each record
+     * @return SplittingParser
+     */
+    public <T> SplittingParser<T> createSplittingParser(Class<T> clazz, String recordElementName, int threads) {
+        return new SplittingParserImpl<T>(createXmlParser(clazz), recordElementName, threads);
+    }
+
+    /**
+     * Creates a publisher which parses records from a stream as they are requested by its subscriber
+     * @param clazz The class to be parsed from each record, with XPaths relative to the record element
+     * @param recordXPath Path to the records, either /path/to/record or //record
+     * @param stream XML document as InputStream, closed when the publisher is done
+     * @param <T> The class to be parsed from each record
+     * @return Publisher supporting a single subscriber
+     */
+    public <T> Flow.Publisher<T> createRecordPublisher(Class<T> clazz, String recordXPath, InputStream stream) {
+        return new RecordPublisherImpl<T>(new StaxRecordReader<T>(createXmlParser(clazz), recordXPath, stream, limits));
     }
 
     public <T> Parser<List<T>> createXmlListParser(Class<T> clazz, String XPathForList) {
         return null;
     }
 
-    private abstract class FieldParser<T> {
+    /**
+     * Sets a field from the node selected by its XPath. Field parsers are shared by all threads using
+     * a parser. JDOM XPath objects keep state while evaluating, so each thread evaluates its own copy
+     * of the XPath, while xPath is only used to describe the field.
+     */
+    private abstract class FieldParser {
         final Field field;
         final org.jdom.xpath.XPath xPath;
+        private final ThreadLocal<org.jdom.xpath.XPath> threadXPath;
+        /** Name in errors and plans, set while building the parser of a constructor parameter */
+        String name;
 
-        public abstract void parseElement(T obj, Object context) throws JDOMException, IllegalAccessException, SaxxpException;
+        public abstract void parseElement(Object obj, Object context) throws JDOMException, IllegalAccessException, SaxxpException;
+
+        /**
+         * @param errors List collecting malformed values, or null to throw FieldParseException. Parsers
+         * of several values use it to keep parsing the remaining values after a malformed one, and parsers
+         * which ignore unknown values in strict mode use it to report them in lenient mode.
+         */
+        public void parseElement(Object obj, Object context, List<FieldError> errors) throws JDOMException, IllegalAccessException, SaxxpException {
+            parseElement(obj, context);
+        }
 
-        public FieldParser(Field field, org.jdom.xpath.XPath xPath) {
+        public FieldParser(Field field, final org.jdom.xpath.XPath xPath) {
             this.field = field;
             this.xPath = xPath;
+            this.name = field.getName();
+            this.threadXPath = new ThreadLocal<org.jdom.xpath.XPath>() {
+                @Override
+                protected org.jdom.xpath.XPath initialValue() {
+                    try {
+                        return org.jdom.xpath.XPath.newInstance(xPath.getXPath());
+                    } catch (JDOMException e) {
+                        throw new SaxxpException("Could not create XPath " + xPath.getXPath(), e);
+                    }
+                }
+            };
+        }
+
+        Object selectSingleNode(Object context) throws JDOMException {
+            return threadXPath.get().selectSingleNode(context);
+        }
+
+        List<?> selectNodes(Object context) throws JDOMException {
+            return threadXPath.get().selectNodes(context);
+        }
+
+        FieldParseException invalid(String text, String reason) {
+            return new FieldParseException(name, xPath.getXPath(), text, reason);
+        }
+
+        ParserPlan explain(boolean nested) {
+            return new ParserPlan(name, getClass().getSimpleName(), xPath.getXPath(), nested, new ArrayList<ParserPlan>());
         }
     }
 
     private class EnumFieldParser extends FieldParser {
+        private final Class<?> enumClass;
         private final Field enumIdentifier;
 
-        public EnumFieldParser(Field field, org.jdom.xpath.XPath xPath, Field enumIdentifier) {
+        public EnumFieldParser(Field field, org.jdom.xpath.XPath xPath, Class<?> enumClass, Field enumIdentifier) {
             super(field, xPath);
+            this.enumClass = enumClass;
             this.enumIdentifier = enumIdentifier;
         }
 
         @Override
         public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-            Element element = (Element) xPath.selectSingleNode(doc);
+            parseElement(obj, doc, null);
+        }
+
+        /**
+         * Unknown identifiers leave the field unset, and are reported as malformed values in lenient mode
+         */
+        @Override
+        public void parseElement(Object obj, Object doc, List<FieldError> errors) throws JDOMException, IllegalAccessException {
+            Element element = (Element) selectSingleNode(doc);
             if (element != null) {
-                for (Object enumElemnt : field.getType().getEnumConstants()) {
+                for (Object enumElemnt : enumClass.getEnumConstants()) {
                     if (enumIdentifier.get(enumElemnt).equals(element.getText())) {
                         field.set(obj, enumElemnt);
-                        break;
+                        return;
                     }
                 }
+                if (errors != null) {
+                    throw invalid(element.getText(), "not an identifier of " + enumClass.getSimpleName());
+                }
             }
         }
     }
 
     private abstract class CollectionsFieldParser<T> extends FieldParser {
-        protected Parser<T> parser;
-        protected FieldParser fieldParser;
+        protected final Parser<T> parser;
+        protected final FieldParser fieldParser;
         protected final Class<T> elementClazz;
 
         protected class ObjectWrapper<T> {
@@ -148,8 +600,60 @@ public class ParserFactory {
             } catch (JDOMException e) {
                 throw new SaxxpException("Could not create new XPath for List parser", e);
             }
+            parser = fieldParser == null ? ParserFactory.this.createXmlParser(elementClazz) : null;
+        }
+
+        @Override
+        ParserPlan explain(boolean nested) {
+            List<ParserPlan> children = new ArrayList<ParserPlan>();
+            if (fieldParser != null) {
+                children.add(fieldParser.explain(true));
+            } else {
+                children.add(((ParserImpl<T>) parser).explain(true));
+            }
+            return new ParserPlan(name, getClass().getSimpleName(), xPath.getXPath(), nested, children);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Element> selectElements(Object context) throws JDOMException {
+            List<Element> elements = (List<Element>) selectNodes(context);
+            if (elements.size() > limits.get(Limit.LIST_LENGTH)) {
+                throw limits.exceeded(Limit.LIST_LENGTH);
+            }
+            return elements;
+        }
+
+        @Override
+        public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException, SaxxpException {
+            parseElement(obj, doc, null);
+        }
+
+        /**
+         * Parses the value of one element into the wrapper. Malformed values of nested objects are
+         * reported for this field, and the object is kept with the values which could be parsed.
+         * @return false if the element is a malformed value, which has been added to errors
+         */
+        protected boolean parseElementValue(ObjectWrapper<T> wrapper, Element element, List<FieldError> errors) throws JDOMException, IllegalAccessException {
             if (fieldParser == null) {
-                parser = ParserFactory.this.createXmlParser(elementClazz);
+                List<FieldError> elementErrors = errors == null ? null : new ArrayList<FieldError>();
+                wrapper.object = ((ParserImpl<T>) parser)._parse(element, elementErrors);
+                if (elementErrors != null) {
+                    for (FieldError error : elementErrors) {
+                        errors.add(new FieldError(name, xPath.getXPath(), error.getText(), error.getField() + ": " + error.getReason()));
+                    }
+                }
+                return true;
+            }
+            try {
+                fieldParser.parseElement(wrapper, element);
+                return true;
+            } catch (FieldParseException e) {
+                FieldParseException invalid = invalid(e.getText(), e.getReason());
+                if (errors == null) {
+                    throw invalid;
+                }
+                errors.add(new FieldError(invalid.getField(), invalid.getXPath(), invalid.getText(), invalid.getReason()));
+                return false;
             }
         }
     }
@@ -160,21 +664,17 @@ public class ParserFactory {
         }
 
         @Override
-        public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException, SaxxpException {
+        public void parseElement(Object obj, Object doc, List<FieldError> errors) throws JDOMException, IllegalAccessException, SaxxpException {
             ObjectWrapper<T> wrapper = new ObjectWrapper<T>();
             List<T> objList = (List<T>) field.get(obj);
             if (objList == null) {
                 objList = new ArrayList<T>();
                 field.set(obj, objList);
             }
-            List<Element> list = xPath.selectNodes(doc);
+            List<Element> list = selectElements(doc);
             for (Element element : list) {
-                if (fieldParser != null) {
-                    fieldParser.parseElement(wrapper, element);
+                if (parseElementValue(wrapper, element, errors)) {
                     objList.add(wrapper.object);
-                } else if (parser != null) {
-                    T returnObj = parser.parse(element);
-                    objList.add(returnObj);
                 }
             }
         }
@@ -186,20 +686,19 @@ public class ParserFactory {
         }
 
         @Override
-        public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException, SaxxpException {
+        public void parseElement(Object obj, Object doc, List<FieldError> errors) throws JDOMException, IllegalAccessException, SaxxpException {
             ObjectWrapper<T> wrapper = new ObjectWrapper<T>();
-            List<Element> list = xPath.selectNodes(doc);
-            T[] objArray = (T[]) Array.newInstance(elementClazz, list.size());
-            for (int i = 0; i <objArray.length; i++) {
-                if (fieldParser != null) {
-                    fieldParser.parseElement(wrapper, list.get(i));
-                    objArray[i] = wrapper.object;
-                }
-                else {
-                    T returnObj = parser.parse(list.get(i));
-                    objArray[i] = returnObj;
+            List<Element> list = selectElements(doc);
+            List<T> values = new ArrayList<T>(list.size());
+            for (Element element : list) {
+                if (parseElementValue(wrapper, element, errors)) {
+                    values.add(wrapper.object);
                 }
             }
+            Object objArray = Array.newInstance(elementClazz, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Array.set(objArray, i, values.get(i));
+            }
             field.set(obj, objArray);
         }
     }
@@ -210,10 +709,14 @@ public class ParserFactory {
         PrimitiveFieldParserFactory() {
             parserMap = new HashMap<Class, Class<FieldParser>>();
             for (Class clazz : this.getClass().getDeclaredClasses()) {
-                if (FieldParser.class.isAssignableFrom(clazz)) {
+                if (FieldParser.class.isAssignableFrom(clazz) && !Modifier.isAbstract(clazz.getModifiers())) {
                     Type type = clazz.getGenericSuperclass();
                     if (type instanceof ParameterizedType) {
                         Type[] generics = ((ParameterizedType) type).getActualTypeArguments();
+                        if (generics[0] instanceof GenericArrayType) {
+                            Class componentType = (Class) ((GenericArrayType) generics[0]).getGenericComponentType();
+                            generics[0] = Array.newInstance(componentType, 0).getClass();
+                        }
                         parserMap.put((Class) generics[0], (Class<FieldParser>) clazz);
                         try {
                             Field primitive = ((Class) generics[0]).getDeclaredField("TYPE");
@@ -249,6 +752,40 @@ public class ParserFactory {
             PrimitiveFieldParser(Field field, org.jdom.xpath.XPath xPath) {
                 super(field, xPath);
             }
+
+            /**
+             * Parses a decimal integer without going through NumberFormatException for malformed values
+             */
+            long parseIntegral(String text, long min, long max) throws FieldParseException {
+                final int length = text.length();
+                int i = 0;
+                boolean negative = false;
+                if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+                    negative = text.charAt(0) == '-';
+                    i++;
+                }
+                if (i == length) {
+                    throw invalid(text, "not a number");
+                }
+                final long limit = negative ? min : -max;
+                final long multiplyLimit = limit / 10;
+                long result = 0;
+                for (; i < length; i++) {
+                    int digit = Character.digit(text.charAt(i), 10);
+                    if (digit < 0) {
+                        throw invalid(text, "not a number");
+                    }
+                    if (result < multiplyLimit) {
+                        throw invalid(text, "out of range");
+                    }
+                    result *= 10;
+                    if (result < limit + digit) {
+                        throw invalid(text, "out of range");
+                    }
+                    result -= digit;
+                }
+                return negative ? result : -result;
+            }
         }
 
         private class IntegerFieldParser extends PrimitiveFieldParser<Integer> {
@@ -258,12 +795,12 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, 0);
                     } else {
-                        field.set(obj, Integer.parseInt(element.getText()));
+                        field.set(obj, (int) parseIntegral(element.getText(), Integer.MIN_VALUE, Integer.MAX_VALUE));
                     }
                 }
             }
@@ -276,12 +813,16 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, 0.0F);
                     } else {
-                        field.set(obj, Float.parseFloat(element.getText()));
+                        try {
+                            field.set(obj, Float.parseFloat(element.getText()));
+                        } catch (NumberFormatException e) {
+                            throw invalid(element.getText(), "not a number");
+                        }
                     }
                 }
             }
@@ -294,12 +835,16 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, 0.0);
                     } else {
-                        field.set(obj, Double.parseDouble(element.getText()));
+                        try {
+                            field.set(obj, Double.parseDouble(element.getText()));
+                        } catch (NumberFormatException e) {
+                            throw invalid(element.getText(), "not a number");
+                        }
                     }
                 }
             }
@@ -312,12 +857,12 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, (byte) 0);
                     } else {
-                        field.set(obj, Byte.parseByte(element.getText()));
+                        field.set(obj, (byte) parseIntegral(element.getText(), Byte.MIN_VALUE, Byte.MAX_VALUE));
                     }
                 }
             }
@@ -330,12 +875,12 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, (short) 0);
                     } else {
-                        field.set(obj, Short.parseShort(element.getText()));
+                        field.set(obj, (short) parseIntegral(element.getText(), Short.MIN_VALUE, Short.MAX_VALUE));
                     }
                 }
             }
@@ -348,12 +893,12 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, 0L);
                     } else {
-                        field.set(obj, Long.parseLong(element.getText()));
+                        field.set(obj, parseIntegral(element.getText(), Long.MIN_VALUE, Long.MAX_VALUE));
                     }
                 }
             }
@@ -366,7 +911,7 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (StringUtils.isBlank(element.getTextTrim())) {
                         field.set(obj, (char) 0);
@@ -384,7 +929,7 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null) {
                     if (element.getText().compareToIgnoreCase("true") == 0 || element.getText().compareToIgnoreCase("1") == 0) {
                         field.set(obj, true);
@@ -402,38 +947,199 @@ public class ParserFactory {
 
             @Override
             public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
-                Element element = (Element) xPath.selectSingleNode(doc);
+                Element element = (Element) selectSingleNode(doc);
                 if (element != null)
                     field.set(obj, element.getText());
             }
         }
+
+        private abstract class LargeTextFieldParser<T> extends PrimitiveFieldParser<T> {
+            LargeTextFieldParser(Field field, org.jdom.xpath.XPath xPath) {
+                super(field, xPath);
+            }
+
+            /**
+             * @return The text of the element, without creating a String if it is kept as LargeText
+             */
+            CharSequence textOf(Element element) {
+                List<?> content = element.getContent();
+                if (content.size() == 1 && content.get(0) instanceof LargeText) {
+                    return ((LargeText) content.get(0)).getContent();
+                }
+                return element.getText();
+            }
+
+            FieldParseException invalid(CharSequence text, String reason) {
+                return invalid(text.subSequence(0, Math.min(text.length(), 100)).toString(), reason);
+            }
+        }
+
+        private class ByteArrayFieldParser extends LargeTextFieldParser<byte[]> {
+            public ByteArrayFieldParser(Field field, org.jdom.xpath.XPath xPath) {
+                super(field, xPath);
+            }
+
+            @Override
+            public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
+                Element element = (Element) selectSingleNode(doc);
+                if (element != null) {
+                    CharSequence text = textOf(element);
+                    try {
+                        field.set(obj, Base64.decode(text));
+                    } catch (IllegalArgumentException e) {
+                        throw invalid(text, "not base64, " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private class InputStreamFieldParser extends LargeTextFieldParser<InputStream> {
+            public InputStreamFieldParser(Field field, org.jdom.xpath.XPath xPath) {
+                super(field, xPath);
+            }
+
+            @Override
+            public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
+                Element element = (Element) selectSingleNode(doc);
+                if (element != null) {
+                    field.set(obj, Base64.decodingStream(textOf(element)));
+                }
+            }
+        }
+
+        private class ReaderFieldParser extends LargeTextFieldParser<Reader> {
+            public ReaderFieldParser(Field field, org.jdom.xpath.XPath xPath) {
+                super(field, xPath);
+            }
+
+            @Override
+            public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
+                Element element = (Element) selectSingleNode(doc);
+                if (element != null) {
+                    field.set(obj, new CharSequenceReader(textOf(element)));
+                }
+            }
+        }
+
+        private class CharSequenceFieldParser extends LargeTextFieldParser<CharSequence> {
+            public CharSequenceFieldParser(Field field, org.jdom.xpath.XPath xPath) {
+                super(field, xPath);
+            }
+
+            @Override
+            public void parseElement(Object obj, Object doc) throws JDOMException, IllegalAccessException {
+                Element element = (Element) selectSingleNode(doc);
+                if (element != null) {
+                    field.set(obj, textOf(element));
+                }
+            }
+        }
     }
 
-    private static class ParserImpl<T> implements Parser<T> {
+    /**
+     * Holds the value of a constructor parameter while the arguments of a constructor are parsed,
+     * so the parameter can be parsed by the same field parsers as fields.
+     */
+    private static class Slot {
+        private static final Field VALUE;
+
+        static {
+            try {
+                VALUE = Slot.class.getDeclaredField("value");
+                VALUE.setAccessible(true);
+            } catch (NoSuchFieldException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private Object value;
+    }
+
+    /**
+     * Parser for a single class. It holds no state between calls, and state for a single call is
+     * kept on the stack, so it can be shared by any number of threads without locking.
+     */
+    private static class ParserImpl<T> implements Parser<T>, SourceParser<T> {
         private final Class<T> clazz;
+        private final Constructor<T> constructor;
+        /** Constructor taking its arguments as an Object[], or null to use the default constructor */
+        private final MethodHandle constructorHandle;
+        private final List<FieldParser> parameterParsers;
+        private final Object[] defaultArguments;
         private final List<FieldParser> parseableElements;
-        private Constructor constructor;
+        private final String subtypeAttribute;
+        private final Map<String, ParserImpl<? extends T>> subtypes;
+        private final DocumentReader documentReader;
 
-        public ParserImpl(Class<T> clazz, List<FieldParser> parseableElements) {
+        /**
+         * @param constructor Constructor with XPath annotated parameters, or null to use the default constructor
+         * @param parameterParsers Parsers of the constructor parameters, setting the value of a Slot
+         * @param subtypeAttribute Attribute selecting the subtype, or null to select by element name
+         * @param subtypes Parsers of subtypes by element name or attribute value, or null if the class has no subtypes
+         */
+        public ParserImpl(Class<T> clazz, Constructor<T> constructor, List<FieldParser> parameterParsers,
+                          List<FieldParser> parseableElements, String subtypeAttribute, Map<String, ParserImpl<? extends T>> subtypes,
+                          DocumentReader documentReader) {
             this.clazz = clazz;
-            this.parseableElements = parseableElements;
-            Constructor<?>[] constructors = clazz.getConstructors();
-            for (Constructor constructor : constructors) {
-                if (constructor.getParameterTypes().length == 0) {
-                    this.constructor = constructor;
+            this.constructor = constructor;
+            this.subtypeAttribute = subtypeAttribute;
+            this.subtypes = subtypes;
+            this.documentReader = documentReader;
+            this.parameterParsers = Collections.unmodifiableList(new ArrayList<FieldParser>(parameterParsers));
+            this.parseableElements = Collections.unmodifiableList(new ArrayList<FieldParser>(parseableElements));
+            if (constructor != null) {
+                Class<?>[] types = constructor.getParameterTypes();
+                defaultArguments = new Object[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    if (types[i].isPrimitive()) {
+                        defaultArguments[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                    }
+                }
+                try {
+                    constructor.setAccessible(true);
+                    constructorHandle = MethodHandles.lookup().unreflectConstructor(constructor)
+                            .asSpreader(Object[].class, types.length)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Could not access constructor " + constructor, e);
+                }
+                return;
+            }
+            defaultArguments = null;
+            constructorHandle = null;
+            if (subtypes != null && Modifier.isAbstract(clazz.getModifiers())) {
+                return;
+            }
+            boolean defaultConstructor = false;
+            for (Constructor<?> iteratorConstructor : clazz.getConstructors()) {
+                if (iteratorConstructor.getParameterTypes().length == 0) {
+                    defaultConstructor = true;
                 }
             }
-            if (this.constructor == null) {
-                throw new IllegalArgumentException("Class " + clazz.toString() + " used in parser does not have a default constructor");
+            if (!defaultConstructor) {
+                throw new IllegalArgumentException("Class " + clazz.toString() + " used in parser does not have a default constructor or a constructor with @XPath annotated parameters");
             }
         }
 
         private T _parse(Object context) {
+            return _parse(context, null);
+        }
+
+        /**
+         * @param errors List collecting fields with malformed values, or null to throw FieldParseException
+         */
+        private T _parse(Object context, List<FieldError> errors) {
+            if (subtypes != null) {
+                ParserImpl<? extends T> subtypeParser = subtypeParser(context);
+                if (subtypeParser != null) {
+                    return subtypeParser._parse(context, errors);
+                }
+            }
             T returnObject;
             try {
-                returnObject = clazz.newInstance();
+                returnObject = constructor == null ? clazz.newInstance() : construct(context, errors);
                 for (FieldParser action : parseableElements) {
-                    action.parseElement(returnObject, context);
+                    parseField(action, returnObject, context, errors);
                 }
             } catch (JDOMException e) {
                 throw new SaxxpException("Could not parse XML using XPath", e);
@@ -445,6 +1151,63 @@ public class ParserFactory {
             return returnObject;
         }
 
+        /**
+         * @return Parser of the subtype selected by the element, or null if the element is parsed as this class
+         */
+        private ParserImpl<? extends T> subtypeParser(Object context) {
+            Element element = null;
+            if (context instanceof Element) {
+                element = (Element) context;
+            } else if (context instanceof Document && ((Document) context).hasRootElement()) {
+                element = ((Document) context).getRootElement();
+            }
+            String key = null;
+            if (element != null) {
+                key = subtypeAttribute == null ? element.getName() : element.getAttributeValue(subtypeAttribute);
+            }
+            ParserImpl<? extends T> subtypeParser = key == null ? null : subtypes.get(key);
+            if (subtypeParser == null && Modifier.isAbstract(clazz.getModifiers())) {
+                throw new SaxxpException("No subtype of " + clazz.getName() + " for " + (subtypeAttribute == null
+                        ? "element '" + key + "'" : "attribute " + subtypeAttribute + "='" + key + "'"));
+            }
+            return subtypeParser;
+        }
+
+        /**
+         * Parses the constructor arguments into a frame of slots, one for each parameter, and calls the
+         * constructor handle once. Parameters without a value get null, or zero for primitives.
+         */
+        private T construct(Object context, List<FieldError> errors) throws JDOMException, IllegalAccessException {
+            final Object[] arguments = new Object[defaultArguments.length];
+            final Slot slot = new Slot();
+            for (int i = 0; i < arguments.length; i++) {
+                slot.value = null;
+                parseField(parameterParsers.get(i), slot, context, errors);
+                arguments[i] = slot.value != null ? slot.value : defaultArguments[i];
+            }
+            final Object instance;
+            try {
+                instance = constructorHandle.invokeExact(arguments);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SaxxpException("Could not create new instance of object", e);
+            }
+            return clazz.cast(instance);
+        }
+
+        private static void parseField(FieldParser action, Object target, Object context, List<FieldError> errors)
+                throws JDOMException, IllegalAccessException {
+            try {
+                action.parseElement(target, context, errors);
+            } catch (FieldParseException e) {
+                if (errors == null) {
+                    throw e;
+                }
+                errors.add(new FieldError(e.getField(), e.getXPath(), e.getText(), e.getReason()));
+            }
+        }
+
         public T parse(String xml) {
             return parse(toInputStream(xml));
         }
@@ -454,14 +1217,92 @@ public class ParserFactory {
         }
 
         public T parse(InputStream stream) {
-            try {
-                Document doc = new SAXBuilder().build(stream);
-                return _parse(doc);
-            } catch (JDOMException e) {
-                throw new SaxxpException("Could not parse input XML", e);
-            } catch (IOException e) {
-                throw new SaxxpException("Could not read XML stream", e);
+            return _parse(build(stream));
+        }
+
+        public T parse(org.w3c.dom.Node node) {
+            return _parse(documentReader.build(node));
+        }
+
+        public T parse(XMLStreamReader reader) {
+            return _parse(documentReader.build(reader));
+        }
+
+        public ParserPlan explain() {
+            return explain(false);
+        }
+
+        /**
+         * Parses a document with this parser and the parsers of all subtypes. An abstract class with
+         * subtypes is only parsed as its subtypes, since the document does not select any of them.
+         */
+        void warmUp(String xml) {
+            if (subtypes != null) {
+                for (ParserImpl<? extends T> subtypeParser : subtypes.values()) {
+                    subtypeParser.warmUp(xml);
+                }
+            }
+            if (subtypes == null || !Modifier.isAbstract(clazz.getModifiers())) {
+                parse(xml);
+            }
+        }
+
+        ParserPlan explain(boolean nested) {
+            List<ParserPlan> fields = new ArrayList<ParserPlan>();
+            for (FieldParser action : parameterParsers) {
+                fields.add(action.explain(nested));
             }
+            for (FieldParser action : parseableElements) {
+                fields.add(action.explain(nested));
+            }
+            if (subtypes != null) {
+                for (ParserImpl<? extends T> subtypeParser : subtypes.values()) {
+                    fields.add(subtypeParser.explain(nested));
+                }
+            }
+            return new ParserPlan(clazz.getName(), getClass().getSimpleName(), null, nested, fields);
+        }
+
+        private Document build(InputStream stream) {
+            return documentReader.build(stream);
+        }
+    }
+
+    private static class LenientParserImpl<T> implements Parser<ParseResult<T>>, SourceParser<ParseResult<T>> {
+        private final ParserImpl<T> parser;
+
+        public LenientParserImpl(ParserImpl<T> parser) {
+            this.parser = parser;
+        }
+
+        private ParseResult<T> _parse(Object context) {
+            List<FieldError> errors = new ArrayList<FieldError>();
+            T value = parser._parse(context, errors);
+            return new ParseResult<T>(value, errors);
+        }
+
+        public ParseResult<T> parse(String xml) {
+            return parse(toInputStream(xml));
+        }
+
+        public ParseResult<T> parse(Element element) {
+            return _parse(element);
+        }
+
+        public ParseResult<T> parse(InputStream stream) {
+            return _parse(parser.build(stream));
+        }
+
+        public ParseResult<T> parse(org.w3c.dom.Node node) {
+            return _parse(parser.documentReader.build(node));
+        }
+
+        public ParseResult<T> parse(XMLStreamReader reader) {
+            return _parse(parser.documentReader.build(reader));
+        }
+
+        public ParserPlan explain() {
+            return parser.explain();
         }
     }
 }
@@ -0,0 +1,133 @@
+package com.github.smat.saxxp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes what a parser does: the fields it sets, how their values are converted, the XPath
+ * selecting each value and an estimate of how expensive the XPath is to evaluate
+ */
+public class ParserPlan {
+    /**
+     * Estimated cost of evaluating an XPath, from cheapest to most expensive
+     */
+    public static enum Cost {
+        /** Selects the context node or one of its attributes */
+        CONSTANT,
+        /** Walks down a fixed path of child elements */
+        CHILD_WALK,
+        /** Searches all descendants of the context node, or of the whole document */
+        FULL_SCAN,
+        /** Depends on predicates, functions or reverse axes, and can not be evaluated while streaming */
+        NON_STREAMABLE
+    }
+
+    private static final String[] NON_STREAMABLE_PATTERNS = {
+            "[", "(", "..", "ancestor::", "ancestor-or-self::", "parent::",
+            "preceding::", "preceding-sibling::", "following::", "following-sibling::"
+    };
+
+    private final String name;
+    private final String converter;
+    private final String xPath;
+    private final Cost cost;
+    private final List<ParserPlan> children;
+    private final List<String> warnings = new ArrayList<String>();
+
+    ParserPlan(String name, String converter, String xPath, boolean nested, List<ParserPlan> children) {
+        this.name = name;
+        this.converter = converter;
+        this.xPath = xPath;
+        this.children = Collections.unmodifiableList(new ArrayList<ParserPlan>(children));
+        Cost max = xPath == null ? Cost.CONSTANT : classify(xPath);
+        if (xPath != null) {
+            if (max == Cost.FULL_SCAN) {
+                warnings.add(name + ": '" + xPath + "' searches every descendant, use a path of child elements instead");
+            } else if (max == Cost.NON_STREAMABLE) {
+                warnings.add(name + ": '" + xPath + "' uses predicates, functions or reverse axes and can not be streamed");
+            }
+            if (nested && xPath.startsWith("/")) {
+                warnings.add(name + ": '" + xPath + "' is absolute and is evaluated from the document root for every element");
+            }
+        }
+        for (ParserPlan child : children) {
+            if (child.getCost().compareTo(max) > 0) {
+                max = child.getCost();
+            }
+        }
+        this.cost = max;
+    }
+
+    static Cost classify(String xPath) {
+        final String trimmed = xPath.trim().replace("text()", "").replace("node()", "");
+        for (String pattern : NON_STREAMABLE_PATTERNS) {
+            if (trimmed.contains(pattern)) {
+                return Cost.NON_STREAMABLE;
+            }
+        }
+        if (trimmed.contains("//") || trimmed.contains("descendant::") || trimmed.contains("descendant-or-self::")) {
+            return Cost.FULL_SCAN;
+        }
+        if (trimmed.length() == 0 || trimmed.equals(".") || trimmed.startsWith("@") || trimmed.equals("/")) {
+            return Cost.CONSTANT;
+        }
+        return Cost.CHILD_WALK;
+    }
+
+    /** @return Name of the field, or of the class for the plan of a parser */
+    public String getName() {
+        return name;
+    }
+
+    /** @return Name of the converter setting the field */
+    public String getConverter() {
+        return converter;
+    }
+
+    /** @return The XPath selecting the value, or null for the plan of a parser */
+    public String getXPath() {
+        return xPath;
+    }
+
+    /** @return Estimated cost of the XPath, or of the most expensive XPath below it if that is higher */
+    public Cost getCost() {
+        return cost;
+    }
+
+    /** @return Fields of a parser, or the element parser of a List or array field */
+    public List<ParserPlan> getChildren() {
+        return children;
+    }
+
+    /** @return Warnings about expensive patterns in this plan and all plans below it */
+    public List<String> getWarnings() {
+        List<String> all = new ArrayList<String>(warnings);
+        for (ParserPlan child : children) {
+            all.addAll(child.getWarnings());
+        }
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        append(builder, "");
+        for (String warning : getWarnings()) {
+            builder.append("\nWARNING ").append(warning);
+        }
+        return builder.toString();
+    }
+
+    private void append(StringBuilder builder, String indent) {
+        builder.append(indent).append(name).append(" [").append(converter);
+        if (xPath != null) {
+            builder.append(", ").append(xPath);
+        }
+        builder.append(", ").append(cost).append("]");
+        for (ParserPlan child : children) {
+            builder.append("\n");
+            child.append(builder, indent + "  ");
+        }
+    }
+}
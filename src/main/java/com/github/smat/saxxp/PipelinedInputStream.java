@@ -0,0 +1,154 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a source stream on a helper thread into a fixed ring of buffers, which are handed to the
+ * reading thread and recycled once consumed. The helper thread blocks when all buffers are full,
+ * so memory use is bounded.
+ */
+class PipelinedInputStream extends InputStream {
+    private final InputStream source;
+    private final BlockingQueue<Chunk> free;
+    private final BlockingQueue<Chunk> filled;
+    private final Thread reader;
+    private Chunk current;
+    private int position;
+    private boolean eof;
+    private volatile boolean closed;
+
+    PipelinedInputStream(InputStream source, int buffers, int bufferSize) {
+        this.source = source;
+        this.free = new ArrayBlockingQueue<Chunk>(buffers);
+        this.filled = new ArrayBlockingQueue<Chunk>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new Chunk(new byte[bufferSize]));
+        }
+        this.reader = new Thread(new Runnable() {
+            public void run() {
+                fill();
+            }
+        }, "saxxp-decompressor");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void fill() {
+        try {
+            while (!closed) {
+                Chunk chunk = free.take();
+                int length = 0;
+                int read = 0;
+                while (length < chunk.data.length && (read = source.read(chunk.data, length, chunk.data.length - length)) != -1) {
+                    length += read;
+                }
+                chunk.length = length;
+                if (length > 0) {
+                    filled.put(chunk);
+                }
+                if (read == -1) {
+                    filled.put(Chunk.END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            filled.offer(new Chunk(e));
+        } catch (RuntimeException e) {
+            filled.offer(new Chunk(new IOException("Could not decompress input: " + e)));
+        }
+    }
+
+    private boolean next() throws IOException {
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        if (current != null) {
+            free.add(current);
+            current = null;
+        }
+        Chunk chunk;
+        try {
+            chunk = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for decompressed input");
+        }
+        if (chunk.error != null) {
+            eof = true;
+            throw chunk.error;
+        }
+        if (chunk == Chunk.END) {
+            eof = true;
+            return false;
+        }
+        current = chunk;
+        position = 0;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) {
+            return -1;
+        }
+        return current.data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!next()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        reader.interrupt();
+        source.close();
+    }
+
+    private static class Chunk {
+        private static final Chunk END = new Chunk(new byte[0]);
+
+        private final byte[] data;
+        private final IOException error;
+        private int length;
+
+        Chunk(byte[] data) {
+            this.data = data;
+            this.error = null;
+        }
+
+        Chunk(IOException error) {
+            this.data = null;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.smat.saxxp;
+
+/**
+ * Receives records produced by a {@link SplittingParser}
+ *
+ * @param <T> Class parsed from each record
+ */
+public interface RecordHandler<T> {
+    /** Handles a single parsed record
+     *
+     * @param record The parsed record
+     */
+    public void handle(T record);
+}
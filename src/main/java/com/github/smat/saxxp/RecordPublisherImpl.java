@@ -0,0 +1,126 @@
+package com.github.smat.saxxp;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes records from a single input stream to a single subscriber. Records are parsed on the
+ * thread requesting them, and never more than the subscriber has requested.
+ */
+class RecordPublisherImpl<T> implements Flow.Publisher<T> {
+    private final StaxRecordReader<T> recordReader;
+    private boolean subscribed;
+
+    RecordPublisherImpl(StaxRecordReader<T> recordReader) {
+        this.recordReader = recordReader;
+    }
+
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber can not be null");
+        }
+        synchronized (this) {
+            if (subscribed) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    public void request(long n) {
+                    }
+
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Publisher only supports a single subscriber"));
+                return;
+            }
+            subscribed = true;
+        }
+        subscriber.onSubscribe(new SubscriptionImpl(subscriber));
+    }
+
+    private class SubscriptionImpl implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private long demand;
+        private boolean emitting;
+        private boolean invalidRequest;
+        private boolean done;
+
+        SubscriptionImpl(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        public void request(long n) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    invalidRequest = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                if (emitting) {
+                    return;
+                }
+                emitting = true;
+            }
+            drain();
+        }
+
+        public void cancel() {
+            boolean release;
+            synchronized (this) {
+                release = !done && !emitting;
+                done = true;
+            }
+            if (release) {
+                recordReader.close();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                boolean invalid;
+                synchronized (this) {
+                    invalid = invalidRequest && !done;
+                    if (done) {
+                        emitting = false;
+                        recordReader.close();
+                        return;
+                    }
+                    if (!invalid) {
+                        if (demand == 0) {
+                            emitting = false;
+                            return;
+                        }
+                        demand--;
+                    }
+                }
+                if (invalid) {
+                    finish();
+                    subscriber.onError(new IllegalArgumentException("Number of requested records must be positive"));
+                    return;
+                }
+                T record;
+                try {
+                    record = recordReader.next();
+                } catch (RuntimeException e) {
+                    finish();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (record == null) {
+                    finish();
+                    subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(record);
+            }
+        }
+
+        private void finish() {
+            synchronized (this) {
+                done = true;
+                emitting = false;
+            }
+            recordReader.close();
+        }
+    }
+}
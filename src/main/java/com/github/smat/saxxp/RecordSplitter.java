@@ -0,0 +1,220 @@
+package com.github.smat.saxxp;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the byte ranges of records in a file by scanning a memory-mapped view of it
+ * for the start and end tags of the record element.
+ *
+ * The scan does not parse the document, so records must not nest inside each other and
+ * the record tags must not appear inside comments or CDATA sections. The file must use an
+ * ASCII compatible encoding.
+ *
+ * Prefixed namespace declarations on the elements enclosing the first record are read from the
+ * prolog, so records can be parsed standalone. The default namespace is not carried over.
+ */
+class RecordSplitter {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int PROLOG_SIZE = 1024;
+    private static final Pattern TAG = Pattern.compile("<(/?)[A-Za-z_][^\\s/>]*((?:[^>\"']|\"[^\"]*\"|'[^']*')*)>");
+    private static final Pattern PREFIX_DECLARATION = Pattern.compile("xmlns:([^\\s=]+)\\s*=\\s*(\"[^\"]*\"|'[^']*')");
+
+    private static final int SEEK_OPEN = 0;
+    private static final int OPEN_NAME_END = 1;
+    private static final int START_TAG = 2;
+    private static final int SEEK_CLOSE = 3;
+    private static final int CLOSE_NAME_END = 4;
+
+    private final byte[] openTag;
+    private final byte[] closeTag;
+
+    interface RangeHandler {
+        void range(long start, long end) throws IOException;
+    }
+
+    RecordSplitter(String recordElementName) {
+        if (StringUtils.isBlank(recordElementName)) {
+            throw new IllegalArgumentException("Could not create splitter for blank record element name");
+        }
+        try {
+            openTag = ("<" + recordElementName).getBytes("UTF-8");
+            closeTag = ("</" + recordElementName).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * Reads the encoding declared in the prolog of the file
+     * @param channel File to read
+     * @return The declared encoding, or UTF-8 if none is declared
+     * @throws IOException
+     */
+    String readEncoding(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PROLOG_SIZE);
+        channel.read(buffer, 0);
+        String prolog = new String(buffer.array(), 0, buffer.position(), "ISO-8859-1");
+        if (prolog.startsWith("<?xml")) {
+            String declaration = StringUtils.substringBefore(prolog, "?>");
+            int index = declaration.indexOf("encoding");
+            if (index >= 0) {
+                String value = declaration.substring(index + "encoding".length()).trim();
+                if (value.startsWith("=")) {
+                    value = value.substring(1).trim();
+                    if (value.length() > 0) {
+                        String encoding = StringUtils.substringBefore(value.substring(1), value.substring(0, 1));
+                        if (StringUtils.isNotBlank(encoding)) {
+                            return encoding;
+                        }
+                    }
+                }
+            }
+        }
+        return "UTF-8";
+    }
+
+    /**
+     * Reads the prefixed namespace declarations in scope at an offset, from the start tags
+     * which are still open there
+     * @param channel File to read
+     * @param end Offset of the first record
+     * @param encoding Encoding of the file
+     * @return Declarations by prefix, as attributes with quoted values
+     * @throws IOException
+     */
+    Map<String, String> readNamespaces(FileChannel channel, long end, String encoding) throws IOException {
+        CharSequence prolog = Charset.forName(encoding).decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, end));
+        List<Map<String, String>> open = new ArrayList<Map<String, String>>();
+        Matcher tag = TAG.matcher(prolog);
+        while (tag.find()) {
+            String attributes = tag.group(2);
+            if (tag.group(1).length() > 0) {
+                if (!open.isEmpty()) {
+                    open.remove(open.size() - 1);
+                }
+            } else if (!attributes.endsWith("/")) {
+                Map<String, String> declarations = new LinkedHashMap<String, String>();
+                Matcher declaration = PREFIX_DECLARATION.matcher(attributes);
+                while (declaration.find()) {
+                    declarations.put(declaration.group(1), declaration.group());
+                }
+                open.add(declarations);
+            }
+        }
+        Map<String, String> namespaces = new LinkedHashMap<String, String>();
+        for (Map<String, String> declarations : open) {
+            namespaces.putAll(declarations);
+        }
+        return namespaces;
+    }
+
+    /**
+     * Scans the file and reports the byte range of every record in document order
+     * @param channel File to scan
+     * @param handler Handler receiving the start (inclusive) and end (exclusive) offset of each record
+     * @throws IOException
+     */
+    void split(FileChannel channel, RangeHandler handler) throws IOException {
+        final long size = channel.size();
+        int state = SEEK_OPEN;
+        int matched = 0;
+        long start = -1;
+        byte quote = 0;
+        boolean slash = false;
+
+        for (long offset = 0; offset < size; offset += WINDOW_SIZE) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+            final int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                final byte b = window.get(i);
+                final long position = offset + i;
+                switch (state) {
+                    case SEEK_OPEN:
+                        if (b == openTag[matched]) {
+                            if (matched == 0) {
+                                start = position;
+                            }
+                            if (++matched == openTag.length) {
+                                state = OPEN_NAME_END;
+                                matched = 0;
+                            }
+                        } else if (b == '<') {
+                            start = position;
+                            matched = 1;
+                        } else {
+                            matched = 0;
+                        }
+                        break;
+                    case OPEN_NAME_END:
+                        if (b == '>') {
+                            state = SEEK_CLOSE;
+                        } else if (b == '/' || isWhitespace(b)) {
+                            state = START_TAG;
+                            quote = 0;
+                            slash = b == '/';
+                        } else if (b == '<') {
+                            state = SEEK_OPEN;
+                            start = position;
+                            matched = 1;
+                        } else {
+                            state = SEEK_OPEN;
+                        }
+                        break;
+                    case START_TAG:
+                        if (quote != 0) {
+                            if (b == quote) {
+                                quote = 0;
+                            }
+                        } else if (b == '"' || b == '\'') {
+                            quote = b;
+                        } else if (b == '>') {
+                            if (slash) {
+                                handler.range(start, position + 1);
+                                state = SEEK_OPEN;
+                            } else {
+                                state = SEEK_CLOSE;
+                            }
+                        }
+                        slash = quote == 0 && b == '/';
+                        break;
+                    case SEEK_CLOSE:
+                        if (b == closeTag[matched]) {
+                            if (++matched == closeTag.length) {
+                                state = CLOSE_NAME_END;
+                                matched = 0;
+                            }
+                        } else {
+                            matched = b == '<' ? 1 : 0;
+                        }
+                        break;
+                    case CLOSE_NAME_END:
+                        if (b == '>') {
+                            handler.range(start, position + 1);
+                            state = SEEK_OPEN;
+                        } else if (!isWhitespace(b)) {
+                            state = SEEK_CLOSE;
+                            matched = b == '<' ? 1 : 0;
+                        }
+                        break;
+                }
+            }
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.smat.saxxp;
+
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.jdom.input.SAXHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+
+/**
+ * SAXBuilder building documents with {@link SaxxpHandler}, configured by a {@link DocumentReader}.
+ * A builder is only used by one thread at a time.
+ */
+class SaxxpBuilder extends SAXBuilder {
+    private static final String XERCES_SECURITY_MANAGER = "org.apache.xerces.util.SecurityManager";
+    private static final String XERCES_SECURITY_MANAGER_PROPERTY = "http://apache.org/xml/properties/security-manager";
+
+    private final DocumentReader reader;
+    private SaxxpHandler handler;
+
+    SaxxpBuilder(DocumentReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    protected SAXHandler createContentHandler() {
+        handler = new SaxxpHandler(getFactory(), reader.getLargeTextThreshold(), reader.getLimits());
+        return handler;
+    }
+
+    @Override
+    protected void configureParser(XMLReader parser, SAXHandler contentHandler) throws JDOMException {
+        super.configureParser(parser, contentHandler);
+        limitEntityExpansion(parser);
+    }
+
+    /**
+     * Bounds entity expansion, which builds the replacement text inside the parser before any
+     * of it reaches the handler and its limits. Uses secure processing where the parser supports
+     * it, and otherwise the security manager of Apache Xerces.
+     */
+    private static void limitEntityExpansion(XMLReader parser) {
+        try {
+            parser.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            return;
+        } catch (SAXException ignore) {
+        }
+        try {
+            Class<?> securityManager = Class.forName(XERCES_SECURITY_MANAGER, true, parser.getClass().getClassLoader());
+            parser.setProperty(XERCES_SECURITY_MANAGER_PROPERTY, securityManager.getDeclaredConstructor().newInstance());
+        } catch (Exception ignore) {
+        }
+    }
+
+    /**
+     * Releases resources held by the last build, after it failed
+     */
+    void discard() {
+        if (handler != null) {
+            handler.discard();
+            handler = null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.smat.saxxp;
+
+import org.jdom.JDOMFactory;
+import org.jdom.input.SAXHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+
+/**
+ * SAXHandler which moves text longer than a threshold out of the heap into a {@link LargeText}
+ * node, instead of collecting it in a String.
+ *
+ * Text is collected here until the next event, and then either passed on to SAXHandler or
+ * added as a LargeText node.
+ *
+ * The handler also enforces the depth, element and text length limits with a {@link LimitCounter},
+ * failing the build as soon as one is exceeded instead of after the whole tree has been built.
+ */
+class SaxxpHandler extends SAXHandler {
+    private final int largeTextThreshold;
+    private final LimitCounter counter;
+    private char[] text = new char[256];
+    private int textLength;
+    private TextSpill spill;
+
+    SaxxpHandler(JDOMFactory factory, int largeTextThreshold, Limits limits) {
+        super(factory);
+        this.largeTextThreshold = largeTextThreshold;
+        this.counter = new LimitCounter(limits);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        counter.text(length);
+        try {
+            if (spill == null && textLength + length > largeTextThreshold) {
+                spill = new TextSpill();
+                spill.write(text, 0, textLength);
+                textLength = 0;
+            }
+            if (spill != null) {
+                spill.write(ch, start, length);
+                return;
+            }
+        } catch (IOException e) {
+            throw new SAXException("Could not write large text to temporary file", e);
+        }
+        if (textLength + length > text.length) {
+            char[] grown = new char[Math.max(text.length * 2, textLength + length)];
+            System.arraycopy(text, 0, grown, 0, textLength);
+            text = grown;
+        }
+        System.arraycopy(ch, start, text, textLength, length);
+        textLength += length;
+    }
+
+    private void flushText() throws SAXException {
+        if (spill != null) {
+            LargeText largeText;
+            try {
+                largeText = new LargeText(spill.finish());
+            } catch (IOException e) {
+                throw new SAXException("Could not map large text from temporary file", e);
+            } finally {
+                spill = null;
+            }
+            getCurrentElement().addContent(largeText);
+        } else if (textLength > 0) {
+            int length = textLength;
+            textLength = 0;
+            super.characters(text, 0, length);
+        }
+    }
+
+    /**
+     * Removes text which has been written to a temporary file, after a failed build
+     */
+    void discard() {
+        if (spill != null) {
+            spill.discard();
+            spill = null;
+        }
+    }
+
+    @Override
+    public void startElement(String namespaceURI, String localName, String qName, Attributes atts) throws SAXException {
+        flushText();
+        counter.startElement();
+        super.startElement(namespaceURI, localName, qName, atts);
+    }
+
+    @Override
+    public void endElement(String namespaceURI, String localName, String qName) throws SAXException {
+        flushText();
+        counter.endElement();
+        super.endElement(namespaceURI, localName, qName);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        flushText();
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        flushText();
+        super.processingInstruction(target, data);
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) throws SAXException {
+        flushText();
+        super.comment(ch, start, length);
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        flushText();
+        super.startCDATA();
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        flushText();
+        super.endCDATA();
+    }
+
+    @Override
+    public void startEntity(String name) throws SAXException {
+        flushText();
+        super.startEntity(name);
+    }
+
+    @Override
+    public void endEntity(String name) throws SAXException {
+        flushText();
+        super.endEntity(name);
+    }
+
+    @Override
+    public void skippedEntity(String name) throws SAXException {
+        flushText();
+        super.skippedEntity(name);
+    }
+}
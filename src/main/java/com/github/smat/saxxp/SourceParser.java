@@ -0,0 +1,28 @@
+package com.github.smat.saxxp;
+
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parses XML which is already held as a W3C DOM tree or by a StAX reader, without serializing it to
+ * text. The input is copied to JDOM within the limits of the {@link ParserFactory} creating the parser.
+ * Parsers created by {@link ParserFactory} are thread-safe, and one instance can be shared by all threads.
+ *
+ * @param <T> Class to be parsed from XML
+ */
+public interface SourceParser<T> {
+    /** Parses a W3C DOM tree
+     *
+     * @param node Document, or Element which is parsed as if it was the root of a document
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     * @return
+     */
+    public T parse(org.w3c.dom.Node node);
+    /** Parses a XML document or element from a StAX reader
+     *
+     * @param reader Reader positioned on START_DOCUMENT, or on START_ELEMENT of an element which is parsed
+     * as if it was the root of a document. It is left on the END_ELEMENT event of the parsed element.
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     * @return
+     */
+    public T parse(XMLStreamReader reader);
+}
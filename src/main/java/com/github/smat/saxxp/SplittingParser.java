@@ -0,0 +1,28 @@
+package com.github.smat.saxxp;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Parses large XML files consisting of repeated records by splitting the file on record
+ * boundaries and binding each record on a pool of worker threads.
+ *
+ * @param <T> Class to be parsed from each record
+ */
+public interface SplittingParser<T> {
+    /** Parses every record in a file
+     *
+     * @param file XML file containing the records
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     * @return The records in document order
+     */
+    public List<T> parse(File file);
+    /** Parses every record in a file and hands them to a handler on the calling thread
+     *
+     * @param file XML file containing the records
+     * @param ordered true to receive records in document order, false to receive them as soon as they are parsed
+     * @param handler Handler receiving each record
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     */
+    public void parse(File file, boolean ordered, RecordHandler<T> handler);
+}
@@ -0,0 +1,190 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a file into records with a {@link RecordSplitter} and parses each record on a worker thread.
+ * Each record is bound the same way as an element of a List field, so XPaths are relative to the
+ * record element. Records are parsed inside an element declaring the namespace prefixes in scope
+ * at the first record, so prefixes declared on the root element stay bound.
+ */
+class SplittingParserImpl<T> implements SplittingParser<T> {
+    private static final int RECORDS_IN_FLIGHT_PER_THREAD = 4;
+    private static final String WRAPPER_ELEMENT_NAME = "saxxp-record";
+
+    private final Parser<T> parser;
+    private final String recordElementName;
+    private final int threads;
+    private final ThreadLocal<SAXBuilder> builders = new ThreadLocal<SAXBuilder>() {
+        @Override
+        protected SAXBuilder initialValue() {
+            return new SAXBuilder();
+        }
+    };
+
+    SplittingParserImpl(Parser<T> parser, String recordElementName, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Could not create splitting parser with less than one thread");
+        }
+        this.parser = parser;
+        this.recordElementName = recordElementName;
+        this.threads = threads;
+    }
+
+    public List<T> parse(File file) {
+        final List<T> records = new ArrayList<T>();
+        parse(file, true, new RecordHandler<T>() {
+            public void handle(T record) {
+                records.add(record);
+            }
+        });
+        return records;
+    }
+
+    public void parse(File file, final boolean ordered, final RecordHandler<T> handler) {
+        final RecordSplitter splitter = new RecordSplitter(recordElementName);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final int maxInFlight = threads * RECORDS_IN_FLIGHT_PER_THREAD;
+        FileInputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            final FileChannel channel = stream.getChannel();
+            final String encoding = splitter.readEncoding(channel);
+            final LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+            final CompletionService<T> completed = new ExecutorCompletionService<T>(executor);
+
+            splitter.split(channel, new RecordSplitter.RangeHandler() {
+                private byte[][] wrapper;
+
+                public void range(long start, long end) throws IOException {
+                    if (wrapper == null) {
+                        wrapper = wrapper(splitter.readNamespaces(channel, start, encoding), encoding);
+                    }
+                    Callable<T> task = new RecordTask(channel, encoding, wrapper, start, end);
+                    pending.add(ordered ? executor.submit(task) : completed.submit(task));
+                    if (pending.size() >= maxInFlight) {
+                        handler.handle(ordered ? await(pending.removeFirst()) : await(take(completed, pending)));
+                    }
+                }
+            });
+            while (!pending.isEmpty()) {
+                handler.handle(ordered ? await(pending.removeFirst()) : await(take(completed, pending)));
+            }
+        } catch (IOException e) {
+            throw new SaxxpException("Could not read XML file " + file, e);
+        } finally {
+            executor.shutdownNow();
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Start and end tag of an element declaring the namespaces, or empty tags if there are none
+     */
+    private static byte[][] wrapper(Map<String, String> namespaces, String encoding) throws IOException {
+        if (namespaces.isEmpty()) {
+            return new byte[][]{new byte[0], new byte[0]};
+        }
+        StringBuilder startTag = new StringBuilder("<").append(WRAPPER_ELEMENT_NAME);
+        for (String declaration : namespaces.values()) {
+            startTag.append(' ').append(declaration);
+        }
+        startTag.append('>');
+        return new byte[][]{startTag.toString().getBytes(encoding), ("</" + WRAPPER_ELEMENT_NAME + ">").getBytes(encoding)};
+    }
+
+    private Future<T> take(CompletionService<T> completed, LinkedList<Future<T>> pending) {
+        try {
+            Future<T> future = completed.take();
+            pending.remove(future);
+            return future;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SaxxpException("Interrupted while waiting for record", e);
+        }
+    }
+
+    private T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SaxxpException("Interrupted while waiting for record", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SaxxpException) {
+                throw (SaxxpException) e.getCause();
+            }
+            throw new SaxxpException("Could not parse record", e.getCause());
+        }
+    }
+
+    private class RecordTask implements Callable<T> {
+        private final FileChannel channel;
+        private final String encoding;
+        private final byte[][] wrapper;
+        private final long start;
+        private final long end;
+
+        RecordTask(FileChannel channel, String encoding, byte[][] wrapper, long start, long end) {
+            this.channel = channel;
+            this.encoding = encoding;
+            this.wrapper = wrapper;
+            this.start = start;
+            this.end = end;
+        }
+
+        public T call() throws IOException, JDOMException {
+            final byte[] startTag = wrapper[0];
+            final byte[] endTag = wrapper[1];
+            if (end - start > Integer.MAX_VALUE - startTag.length - endTag.length) {
+                throw new SaxxpException("Record at offset " + start + " is too large", null);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(startTag.length + (int) (end - start) + endTag.length);
+            buffer.put(startTag);
+            buffer.limit(buffer.capacity() - endTag.length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position() - startTag.length) < 0) {
+                    throw new SaxxpException("Unexpected end of file in record at offset " + start, null);
+                }
+            }
+            buffer.limit(buffer.capacity());
+            buffer.put(endTag);
+            InputSource source = new InputSource(new ByteArrayInputStream(buffer.array()));
+            source.setEncoding(encoding);
+            Document doc = builders.get().build(source);
+            Element record = doc.getRootElement();
+            if (startTag.length > 0) {
+                record = (Element) record.getChildren().get(0);
+            }
+            return parser.parse(record);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.smat.saxxp;
+
+import org.jdom.Attribute;
+import org.jdom.CDATA;
+import org.jdom.Comment;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.ProcessingInstruction;
+import org.jdom.Text;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Builds JDOM elements directly from a StAX stream, without serializing the input to text.
+ * Elements and text are counted as they are read, so input exceeding a limit is rejected
+ * before it has been built.
+ */
+class StaxElementBuilder {
+    private StaxElementBuilder() {
+    }
+
+    /**
+     * Builds the element the reader is positioned on, including all of its content
+     * @param reader Reader positioned on a START_ELEMENT event. It is left on the matching END_ELEMENT event.
+     * @param counter Counter of the limits, counting the element and its content
+     * @return Detached element
+     * @throws XMLStreamException
+     */
+    static Element build(XMLStreamReader reader, LimitCounter counter) throws XMLStreamException {
+        if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            throw new IllegalStateException("XMLStreamReader is not positioned on a start element");
+        }
+        counter.startElement();
+        final Element root = createElement(reader);
+        Element current = root;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    counter.startElement();
+                    Element element = createElement(reader);
+                    current.addContent(element);
+                    current = element;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    counter.endElement();
+                    if (current == root) {
+                        return root;
+                    }
+                    current = current.getParentElement();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    counter.text(reader.getTextLength());
+                    current.addContent(new Text(reader.getText()));
+                    break;
+                case XMLStreamConstants.CDATA:
+                    counter.text(reader.getTextLength());
+                    current.addContent(new CDATA(reader.getText()));
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    current.addContent(new Comment(reader.getText()));
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    current.addContent(new ProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                    break;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of XML stream in element " + root.getQualifiedName());
+    }
+
+    private static Element createElement(XMLStreamReader reader) {
+        final Element element = new Element(reader.getLocalName(), namespace(reader.getPrefix(), reader.getNamespaceURI()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            if (prefix != null && prefix.length() > 0 && !prefix.equals(element.getNamespacePrefix())) {
+                element.addNamespaceDeclaration(Namespace.getNamespace(prefix, reader.getNamespaceURI(i)));
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(new Attribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                    namespace(reader.getAttributePrefix(i), reader.getAttributeNamespace(i))));
+        }
+        return element;
+    }
+
+    private static Namespace namespace(String prefix, String uri) {
+        if (uri == null || uri.length() == 0) {
+            return Namespace.NO_NAMESPACE;
+        }
+        return Namespace.getNamespace(prefix == null ? "" : prefix, uri);
+    }
+}
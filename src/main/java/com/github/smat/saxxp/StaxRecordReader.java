@@ -0,0 +1,129 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.apache.commons.lang.StringUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pulls records one at a time from a StAX stream. Only the subtree of the current record is
+ * built, and it is released as soon as the record has been bound.
+ *
+ * Records are selected with a streamable subset of XPath: an absolute path of element names
+ * like /feed/entry, or a single element name anywhere in the document like //entry.
+ * XPaths of the record class are relative to the record element.
+ *
+ * The input byte, depth, element and text length limits apply to the whole stream, while text
+ * outside records is skipped without being counted.
+ */
+class StaxRecordReader<T> {
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    private final Parser<T> parser;
+    private final String[] steps;
+    private final boolean anywhere;
+    private final InputStream stream;
+    private final XMLStreamReader reader;
+    private final List<String> path = new ArrayList<String>();
+    private final LimitCounter counter;
+
+    StaxRecordReader(Parser<T> parser, String recordXPath, InputStream stream, Limits limits) {
+        if (StringUtils.isBlank(recordXPath) || !recordXPath.startsWith("/")) {
+            throw new IllegalArgumentException("Record XPath must be an absolute path of element names: " + recordXPath);
+        }
+        anywhere = recordXPath.startsWith("//");
+        steps = StringUtils.split(recordXPath, '/');
+        for (String step : steps) {
+            if (!step.matches("[\\w.\\-]+(:[\\w.\\-]+)?")) {
+                throw new IllegalArgumentException("Record XPath must only contain element names: " + recordXPath);
+            }
+        }
+        if (steps.length == 0 || (anywhere && (steps.length != 1 || recordXPath.lastIndexOf("//") != 0))
+                || (!anywhere && recordXPath.indexOf("//") >= 0)) {
+            throw new IllegalArgumentException("Record XPath must be /path/to/record or //record: " + recordXPath);
+        }
+        this.parser = parser;
+        this.stream = stream;
+        this.counter = new LimitCounter(limits);
+        try {
+            this.reader = INPUT_FACTORY.createXMLStreamReader(new LimitedInputStream(stream, limits));
+        } catch (XMLStreamException e) {
+            throw new SaxxpException("Could not read XML stream", e);
+        }
+    }
+
+    /**
+     * Parses the next record
+     * @return The next record, or null when there are no more records
+     */
+    T next() {
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    path.add(qualifiedName());
+                    if (matches()) {
+                        path.remove(path.size() - 1);
+                        return parser.parse(StaxElementBuilder.build(reader, counter));
+                    }
+                    counter.startElement();
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.remove(path.size() - 1);
+                    counter.endElement();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new SaxxpException("Could not parse input XML", e);
+        }
+    }
+
+    /**
+     * Releases the reader and closes the underlying stream
+     */
+    void close() {
+        try {
+            reader.close();
+        } catch (XMLStreamException ignore) {
+        }
+        try {
+            stream.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private String qualifiedName() {
+        String prefix = reader.getPrefix();
+        if (prefix == null || prefix.length() == 0) {
+            return reader.getLocalName();
+        }
+        return prefix + ":" + reader.getLocalName();
+    }
+
+    private boolean matches() {
+        if (anywhere) {
+            return steps[0].equals(path.get(path.size() - 1));
+        }
+        if (path.size() != steps.length) {
+            return false;
+        }
+        for (int i = 0; i < steps.length; i++) {
+            if (!steps[i].equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
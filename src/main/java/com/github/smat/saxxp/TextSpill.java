@@ -0,0 +1,163 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes text to a temporary file, and maps the file back into memory outside the heap when done.
+ *
+ * Text is written with one byte per character while it only contains characters up to U+00FF, which
+ * covers ASCII content like base64. The first wider character rewrites the file with two bytes per
+ * character. The file is opened with DELETE_ON_CLOSE, so it is removed as soon as it is closed, or
+ * on systems which do not remove mapped files, as soon as the mapping is released.
+ */
+class TextSpill {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean wide;
+
+    TextSpill() throws IOException {
+        channel = open();
+    }
+
+    void write(char[] ch, int start, int length) throws IOException {
+        for (int i = start; i < start + length; i++) {
+            final char c = ch[i];
+            if (!wide && c > 0xff) {
+                widen();
+            }
+            if (wide) {
+                if (buffer.remaining() < 2) {
+                    flush();
+                }
+                buffer.putChar(c);
+            } else {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) c);
+            }
+        }
+    }
+
+    /**
+     * Maps the written text into memory and closes the file
+     * @return Read-only view of the text
+     */
+    CharSequence finish() throws IOException {
+        try {
+            flush();
+            final long size = channel.size();
+            if ((wide ? size / 2 : size) > Integer.MAX_VALUE) {
+                throw new IOException("Text of " + (wide ? size / 2 : size) + " characters is too large");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return wide ? mapped.asCharBuffer() : new Latin1Text(mapped, 0, (int) size);
+        } finally {
+            discard();
+        }
+    }
+
+    /**
+     * Closes the file, which removes it
+     */
+    void discard() {
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static FileChannel open() throws IOException {
+        Path file = Files.createTempFile("saxxp", ".text");
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrites the text written so far with two bytes per character, into a new file
+     */
+    private void widen() throws IOException {
+        flush();
+        final FileChannel narrow = channel;
+        channel = open();
+        wide = true;
+        final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE / 2);
+        long position = 0;
+        try {
+            while (narrow.read(input, position) > 0) {
+                input.flip();
+                position += input.remaining();
+                while (input.hasRemaining()) {
+                    buffer.putChar((char) (input.get() & 0xff));
+                }
+                input.clear();
+                flush();
+            }
+        } finally {
+            narrow.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Text stored with one byte per character
+     */
+    private static class Latin1Text implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        Latin1Text(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " outside text of " + length + " characters");
+            }
+            return (char) (bytes.get(offset + index) & 0xff);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range " + start + "-" + end + " outside text of " + length + " characters");
+            }
+            return new Latin1Text(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] text = new byte[length];
+            ByteBuffer view = bytes.duplicate();
+            view.position(offset);
+            view.get(text);
+            return new String(text, LATIN1);
+        }
+    }
+}
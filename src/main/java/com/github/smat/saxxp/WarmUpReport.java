@@ -0,0 +1,51 @@
+package com.github.smat.saxxp;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of warming up a {@link ParserFactory}
+ */
+public class WarmUpReport {
+    private final Map<Class<?>, Long> durations;
+    private final Map<Class<?>, Throwable> failures;
+    private final long totalNanos;
+
+    public WarmUpReport(Map<Class<?>, Long> durations, Map<Class<?>, Throwable> failures, long totalNanos) {
+        this.durations = Collections.unmodifiableMap(new LinkedHashMap<Class<?>, Long>(durations));
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<Class<?>, Throwable>(failures));
+        this.totalNanos = totalNanos;
+    }
+
+    /** @return Time in nanoseconds spent creating, and optionally exercising, the parser of each class */
+    public Map<Class<?>, Long> getDurations() {
+        return durations;
+    }
+
+    /** @return Classes a parser could not be created for, with the reason */
+    public Map<Class<?>, Throwable> getFailures() {
+        return failures;
+    }
+
+    /** @return Wall-clock time in nanoseconds for the whole warm-up */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Warmed up ").append(durations.size()).append(" parsers in ")
+                .append(totalNanos / 1000000).append(" ms");
+        for (Map.Entry<Class<?>, Long> entry : durations.entrySet()) {
+            builder.append("\n  ").append(entry.getKey().getName()).append(": ")
+                    .append(entry.getValue() / 1000).append(" us");
+        }
+        for (Map.Entry<Class<?>, Throwable> entry : failures.entrySet()) {
+            builder.append("\n  ").append(entry.getKey().getName()).append(": failed, ")
+                    .append(entry.getValue());
+        }
+        return builder.toString();
+    }
+}
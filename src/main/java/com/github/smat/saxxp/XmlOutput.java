@@ -0,0 +1,196 @@
+package com.github.smat.saxxp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes XML to a Writer or to an OutputStream as UTF-8 through a char buffer and an encoder
+ * which are reused for every document written by a thread.
+ *
+ * Start tags are written when the first text inside the element is written, so elements which
+ * end up without any text are left out of the output. The root element is written as an empty
+ * element if it has no text, so every document has a root element. Characters which are not allowed in XML 1.0,
+ * like control characters and unpaired surrogates, are left out of the text.
+ */
+class XmlOutput {
+    private static final int BUFFER_SIZE = 8192;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+    private final CharsetEncoder encoder = UTF8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 2);
+    private Writer writer;
+    private OutputStream stream;
+    private String[] elements = new String[16];
+    private int depth;
+    private int started;
+
+    void open(Writer writer) {
+        this.writer = writer;
+        this.stream = null;
+        reset();
+    }
+
+    void open(OutputStream stream) throws IOException {
+        this.writer = null;
+        this.stream = stream;
+        reset();
+        encoder.reset();
+        append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    }
+
+    /**
+     * Writes all buffered output and flushes the Writer or OutputStream, without closing it
+     */
+    void close() throws IOException {
+        try {
+            drain(true);
+            if (writer != null) {
+                writer.flush();
+            } else {
+                stream.flush();
+            }
+        } finally {
+            writer = null;
+            stream = null;
+        }
+    }
+
+    void startElement(String name) {
+        if (depth == elements.length) {
+            String[] grown = new String[depth * 2];
+            System.arraycopy(elements, 0, grown, 0, depth);
+            elements = grown;
+        }
+        elements[depth++] = name;
+    }
+
+    void endElement() throws IOException {
+        depth--;
+        if (started > depth) {
+            started = depth;
+            append("</");
+            append(elements[depth]);
+            append('>');
+        } else if (depth == 0) {
+            append('<');
+            append(elements[depth]);
+            append("/>");
+        }
+        elements[depth] = null;
+    }
+
+    void text(CharSequence text) throws IOException {
+        startElements();
+        final int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    append("&amp;");
+                    break;
+                case '<':
+                    append("&lt;");
+                    break;
+                case '>':
+                    append("&gt;");
+                    break;
+                case '\r':
+                    append("&#13;");
+                    break;
+                default:
+                    if (c >= 0x20 && c < 0xd800 || c == '\t' || c == '\n' || c >= 0xe000 && c <= 0xfffd) {
+                        append(c);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < textLength && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        append(c);
+                        append(text.charAt(++i));
+                    }
+            }
+        }
+    }
+
+    void base64(byte[] data) throws IOException {
+        startElements();
+        for (int i = 0; i < data.length; i += 3) {
+            if (length + 4 > buffer.length) {
+                drain(false);
+            }
+            Base64.encode(data, i, buffer, length);
+            length += 4;
+        }
+    }
+
+    private void reset() {
+        length = 0;
+        depth = 0;
+        started = 0;
+    }
+
+    private void startElements() throws IOException {
+        while (started < depth) {
+            append('<');
+            append(elements[started++]);
+            append('>');
+        }
+    }
+
+    private void append(String text) throws IOException {
+        final int textLength = text.length();
+        if (length + textLength > buffer.length) {
+            drain(false);
+            if (textLength > buffer.length) {
+                for (int i = 0; i < textLength; i++) {
+                    append(text.charAt(i));
+                }
+                return;
+            }
+        }
+        text.getChars(0, textLength, buffer, length);
+        length += textLength;
+    }
+
+    private void append(char c) throws IOException {
+        if (length == buffer.length) {
+            drain(false);
+        }
+        buffer[length++] = c;
+    }
+
+    private void drain(boolean endOfInput) throws IOException {
+        if (writer != null) {
+            writer.write(buffer, 0, length);
+            length = 0;
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(buffer, 0, length);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, endOfInput);
+            writeBytes();
+        } while (result.isOverflow());
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        }
+        // a high surrogate at the end of the buffer is kept until its low surrogate is appended
+        length = chars.remaining();
+        chars.get(buffer, 0, length);
+    }
+
+    private void writeBytes() throws IOException {
+        stream.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.smat.saxxp;
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writes objects as XML from the same annotations their parser reads. Writers created by
+ * {@link ParserFactory} are thread-safe, and one instance can be shared by all threads.
+ *
+ * @param <T> Class to be written as XML
+ */
+public interface XmlWriter<T> {
+    /** Writes an object as a XML document
+     *
+     * @param object Object to write
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     * @return XML document without XML declaration
+     */
+    public String write(T object);
+    /** Writes an object as a XML document encoded as UTF-8, with XML declaration
+     *
+     * @param object Object to write
+     * @param stream Stream receiving the document. It is flushed, but not closed.
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     */
+    public void write(T object, OutputStream stream);
+    /** Writes an object as a XML document without XML declaration
+     *
+     * @param object Object to write
+     * @param writer Writer receiving the document. It is flushed, but not closed.
+     * @throws com.github.smat.saxxp.exception.SaxxpException
+     */
+    public void write(T object, Writer writer);
+}
@@ -0,0 +1,318 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.annotation.XmlEnumIdentifier;
+import com.github.smat.saxxp.annotation.XmlSubtypes;
+import com.github.smat.saxxp.exception.SaxxpException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the fields of a class to the elements selected by their XPaths. Only XPaths of child
+ * element names are supported, and "." for the text of the element of a nested class. The
+ * elements are built into a plan once, and written without building a tree for each object.
+ * Classes with {@link XmlSubtypes} can not be nested, since the written element would not select
+ * the subtype when parsed.
+ */
+class XmlWriterImpl<T> implements XmlWriter<T> {
+    private static final Pattern PATH = Pattern.compile("/?[A-Za-z_][\\w.\\-]*(/[A-Za-z_][\\w.\\-]*)*|\\.");
+    private static final Set<Class<?>> TEXT_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, CharSequence.class, Character.class, char.class, Boolean.class, boolean.class,
+            Byte.class, byte.class, Short.class, short.class, Integer.class, int.class,
+            Long.class, long.class, Float.class, float.class, Double.class, double.class));
+    private static final ThreadLocal<XmlOutput> OUTPUTS = new ThreadLocal<XmlOutput>() {
+        @Override
+        protected XmlOutput initialValue() {
+            return new XmlOutput();
+        }
+    };
+
+    private final Class<T> clazz;
+    private final ElementStep root = new ElementStep(null);
+    private final Set<String> rootNames = new LinkedHashSet<String>();
+    private boolean absolutePaths;
+    private boolean selfPaths;
+
+    /**
+     * Creates a writer without any fields, which are added by {@link #addFields(ParserFactory)} once the
+     * writer is registered, so a class nested in itself is written by the writer being built
+     */
+    XmlWriterImpl(Class<T> clazz) {
+        this.clazz = clazz;
+        for (Field field : ParserFactory.xPathFields(clazz)) {
+            String xPath = field.getAnnotation(XPath.class).value().trim();
+            if (xPath.equals(".")) {
+                selfPaths = true;
+            } else if (xPath.startsWith("/")) {
+                absolutePaths = true;
+            }
+        }
+    }
+
+    void addFields(ParserFactory factory) {
+        for (Field field : ParserFactory.xPathFields(clazz)) {
+            field.setAccessible(true);
+            addField(factory, field, field.getAnnotation(XPath.class).value().trim());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the class can not be written as a document
+     */
+    void checkDocument() {
+        if (selfPaths) {
+            throw new IllegalArgumentException("Class " + clazz.getName() + " uses XPath '.', which can only be written for nested classes");
+        }
+        if (rootNames.size() != 1) {
+            throw new IllegalArgumentException("XPaths of class " + clazz.getName() + " must start with the same root element, found " + rootNames);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the class can not be written inside the element of a List or array
+     */
+    void checkNested() {
+        if (absolutePaths) {
+            throw new IllegalArgumentException("Class " + clazz.getName() + " is nested and can not be written with absolute XPaths");
+        }
+    }
+
+    public String write(T object) {
+        StringWriter writer = new StringWriter();
+        write(object, writer);
+        return writer.toString();
+    }
+
+    public void write(T object, OutputStream stream) {
+        XmlOutput output = OUTPUTS.get();
+        try {
+            output.open(stream);
+            root.write(object, output);
+            output.close();
+        } catch (IOException e) {
+            throw new SaxxpException("Could not write XML stream", e);
+        } catch (IllegalAccessException e) {
+            throw new SaxxpException("Could not access field in object", e);
+        }
+    }
+
+    public void write(T object, Writer writer) {
+        XmlOutput output = OUTPUTS.get();
+        try {
+            output.open(writer);
+            root.write(object, output);
+            output.close();
+        } catch (IOException e) {
+            throw new SaxxpException("Could not write XML stream", e);
+        } catch (IllegalAccessException e) {
+            throw new SaxxpException("Could not access field in object", e);
+        }
+    }
+
+    private void addField(ParserFactory factory, Field field, String xPath) {
+        if (!PATH.matcher(xPath).matches()) {
+            throw new IllegalArgumentException("XPath '" + xPath + "' of field " + field.getName() + " can not be written, only paths of element names are supported");
+        }
+        final FieldStep step;
+        if (xPath.equals(".")) {
+            step = new FieldStep(field, null);
+            root.steps.add(step);
+        } else {
+            if (xPath.startsWith("/")) {
+                xPath = xPath.substring(1);
+            }
+            String[] names = xPath.split("/");
+            rootNames.add(names[0]);
+            ElementStep parent = root;
+            for (int i = 0; i < names.length - 1; i++) {
+                parent = parent.child(names[i]);
+            }
+            step = new FieldStep(field, names[names.length - 1]);
+            parent.steps.add(step);
+        }
+
+        Class<?> type = field.getType();
+        if (type.isArray() && type != byte[].class) {
+            step.repeated = true;
+            type = type.getComponentType();
+        } else if (List.class.isAssignableFrom(type)) {
+            Type genericType = field.getGenericType();
+            if (!(genericType instanceof ParameterizedType)) {
+                throw new IllegalArgumentException("List does not have a defined generic type");
+            }
+            step.repeated = true;
+            type = (Class<?>) ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        }
+        if (step.repeated && step.name == null) {
+            throw new IllegalArgumentException("Field " + field.getName() + " with XPath '.' can not be a List or array");
+        }
+        step.value = valueWriter(factory, field, type, step.repeated);
+    }
+
+    private static ValueWriter valueWriter(ParserFactory factory, Field field, Class<?> type, boolean repeated) {
+        if (TEXT_TYPES.contains(type)) {
+            return new TextValueWriter();
+        }
+        if (type == byte[].class) {
+            return new Base64ValueWriter();
+        }
+        if (type.isEnum()) {
+            for (Field enumField : type.getDeclaredFields()) {
+                if (enumField.isAnnotationPresent(XmlEnumIdentifier.class)) {
+                    enumField.setAccessible(true);
+                    return new EnumValueWriter(enumField);
+                }
+            }
+            throw new IllegalArgumentException("Enum does not contains @XmlEnumIdentifier annotation");
+        }
+        if (!repeated || type.isPrimitive() || type.isInterface() || type.getName().startsWith("java.")) {
+            throw new IllegalArgumentException("Field " + field.getName() + " of type " + type.getName() + " can not be written");
+        }
+        if (type.isAnnotationPresent(XmlSubtypes.class)) {
+            throw new IllegalArgumentException("Field " + field.getName() + " of type " + type.getName() + " with subtypes can not be written");
+        }
+        XmlWriterImpl<?> nested = factory.getXmlWriter(type);
+        nested.checkNested();
+        return new NestedValueWriter(nested);
+    }
+
+    private static class ElementStep {
+        private final String name;
+        private final List<Object> steps = new ArrayList<Object>();
+
+        ElementStep(String name) {
+            this.name = name;
+        }
+
+        ElementStep child(String name) {
+            for (Object step : steps) {
+                if (step instanceof ElementStep && name.equals(((ElementStep) step).name)) {
+                    return (ElementStep) step;
+                }
+            }
+            ElementStep child = new ElementStep(name);
+            steps.add(child);
+            return child;
+        }
+
+        void write(Object obj, XmlOutput output) throws IOException, IllegalAccessException {
+            if (name != null) {
+                output.startElement(name);
+            }
+            for (Object step : steps) {
+                if (step instanceof ElementStep) {
+                    ((ElementStep) step).write(obj, output);
+                } else {
+                    ((FieldStep) step).write(obj, output);
+                }
+            }
+            if (name != null) {
+                output.endElement();
+            }
+        }
+    }
+
+    private static class FieldStep {
+        private final Field field;
+        private final String name;
+        private boolean repeated;
+        private ValueWriter value;
+
+        FieldStep(Field field, String name) {
+            this.field = field;
+            this.name = name;
+        }
+
+        void write(Object obj, XmlOutput output) throws IOException, IllegalAccessException {
+            Object fieldValue = field.get(obj);
+            if (fieldValue == null) {
+                return;
+            }
+            if (!repeated) {
+                writeElement(fieldValue, output);
+            } else if (fieldValue instanceof List) {
+                for (Object item : (List) fieldValue) {
+                    writeElement(item, output);
+                }
+            } else {
+                for (int i = 0, length = Array.getLength(fieldValue); i < length; i++) {
+                    writeElement(Array.get(fieldValue, i), output);
+                }
+            }
+        }
+
+        private void writeElement(Object item, XmlOutput output) throws IOException, IllegalAccessException {
+            if (item == null) {
+                return;
+            }
+            if (name != null) {
+                output.startElement(name);
+            }
+            value.write(item, output);
+            if (name != null) {
+                output.endElement();
+            }
+        }
+    }
+
+    private interface ValueWriter {
+        void write(Object value, XmlOutput output) throws IOException, IllegalAccessException;
+    }
+
+    private static class TextValueWriter implements ValueWriter {
+        public void write(Object value, XmlOutput output) throws IOException {
+            if (value instanceof Character && (Character) value == 0) {
+                // the default value of a char field, which can not be written in XML
+                return;
+            }
+            output.text(value instanceof CharSequence ? (CharSequence) value : value.toString());
+        }
+    }
+
+    private static class Base64ValueWriter implements ValueWriter {
+        public void write(Object value, XmlOutput output) throws IOException {
+            output.base64((byte[]) value);
+        }
+    }
+
+    private static class EnumValueWriter implements ValueWriter {
+        private final Field enumIdentifier;
+
+        EnumValueWriter(Field enumIdentifier) {
+            this.enumIdentifier = enumIdentifier;
+        }
+
+        public void write(Object value, XmlOutput output) throws IOException, IllegalAccessException {
+            Object identifier = enumIdentifier.get(value);
+            if (identifier != null) {
+                output.text(identifier.toString());
+            }
+        }
+    }
+
+    private static class NestedValueWriter implements ValueWriter {
+        private final XmlWriterImpl<?> writer;
+
+        NestedValueWriter(XmlWriterImpl<?> writer) {
+            this.writer = writer;
+        }
+
+        public void write(Object value, XmlOutput output) throws IOException, IllegalAccessException {
+            writer.root.write(value, output);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.smat.saxxp.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A subtype listed in {@link XmlSubtypes}
+ */
+@Target({})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface XmlSubtype {
+    /** Element name, or attribute value if {@link XmlSubtypes#attribute()} is set */
+    String name();
+    Class<?> type();
+}
@@ -0,0 +1,19 @@
+package com.github.smat.saxxp.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lists the subclasses a class is parsed as, selected by the name of the parsed element or by the
+ * value of one of its attributes. Elements matching no subtype are parsed as the annotated class,
+ * unless it is abstract.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface XmlSubtypes {
+    /** Attribute whose value selects the subtype, or empty to select by element name */
+    String attribute() default "";
+    XmlSubtype[] value();
+}
@@ -0,0 +1,45 @@
+package com.github.smat.saxxp.exception;
+
+/**
+ * Thrown when the text selected for a field can not be converted to the type of the field.
+ *
+ * The exception describes the failing value itself, so it does not fill in a stack trace.
+ * This keeps parsing of documents with malformed values cheap.
+ */
+public class FieldParseException extends SaxxpException {
+    private static final long serialVersionUID = 1L;
+
+    private final String field;
+    private final String xPath;
+    private final String text;
+    private final String reason;
+
+    public FieldParseException(String field, String xPath, String text, String reason) {
+        super("Could not parse field " + field + " from '" + text + "' selected by " + xPath + ": " + reason);
+        this.field = field;
+        this.xPath = xPath;
+        this.text = text;
+        this.reason = reason;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getXPath() {
+        return xPath;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.smat.saxxp.exception;
+
+/**
+ * Thrown when input exceeds one of the limits configured on a {@link com.github.smat.saxxp.ParserFactory}.
+ *
+ * Limits are meant to reject hostile input early, so the exception does not fill in a stack trace.
+ */
+public class LimitExceededException extends SaxxpException {
+    private static final long serialVersionUID = 1L;
+
+    public static enum Limit {
+        /** Bytes read from the input stream */
+        INPUT_BYTES,
+        /** Nesting depth of elements */
+        DEPTH,
+        /** Number of elements in the document */
+        ELEMENTS,
+        /** Number of elements selected for a List or array field */
+        LIST_LENGTH,
+        /** Length of text between two tags */
+        TEXT_LENGTH
+    }
+
+    private final Limit limit;
+    private final long maximum;
+
+    public LimitExceededException(Limit limit, long maximum) {
+        super("Input exceeds limit " + limit + " of " + maximum);
+        this.limit = limit;
+        this.maximum = maximum;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,6 +1,10 @@
 package com.github.smat.saxxp.exception;
 
 public class SaxxpException extends RuntimeException {
+    public SaxxpException(String message) {
+        super(message);
+    }
+
     public SaxxpException(String message, Throwable cause) {
         super(message, cause);
     }
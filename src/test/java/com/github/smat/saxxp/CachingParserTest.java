@@ -0,0 +1,117 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.LimitExceededException;
+import org.apache.commons.io.input.CountingInputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import static org.apache.commons.io.IOUtils.toInputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CachingParserTest {
+    private Parser<CachedTestObj> delegate;
+
+    @Before
+    public void setup() {
+        delegate = new ParserFactory().createXmlParser(CachedTestObj.class);
+    }
+
+    @Test
+    public void shouldReturnCachedResultForIdenticalInput() {
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(delegate, 10, 1024);
+        CachedTestObj first = parser.parse("<test>1</test>");
+        CachedTestObj second = parser.parse(toInputStream("<test>1</test>"));
+        assertSame(first, second);
+        assertEquals(1, parser.getMisses());
+        assertEquals(1, parser.getHits());
+    }
+
+    @Test
+    public void shouldParseDifferentInput() {
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(delegate, 10, 1024);
+        assertEquals(1, (int) parser.parse("<test>1</test>").getTest());
+        assertEquals(2, (int) parser.parse("<test>2</test>").getTest());
+        assertEquals(2, parser.getMisses());
+        assertEquals(0, parser.getHits());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() {
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(delegate, 2, 1024);
+        CachedTestObj one = parser.parse("<test>1</test>");
+        parser.parse("<test>2</test>");
+        parser.parse("<test>1</test>");
+        parser.parse("<test>3</test>");
+        assertEquals(1, parser.getEvictions());
+        assertEquals(2, parser.size());
+        assertSame(one, parser.parse("<test>1</test>"));
+        assertEquals(2, parser.getHits());
+    }
+
+    @Test
+    public void shouldEvictWhenTotalInputSizeIsExceeded() {
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(delegate, 10, 30);
+        parser.parse("<test>1</test>");
+        parser.parse("<test>2</test>");
+        parser.parse("<test>3</test>");
+        assertEquals(2, parser.size());
+        assertEquals(1, parser.getEvictions());
+    }
+
+    @Test
+    public void shouldReturnCopyFromOverriddenCopyMethod() {
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(delegate, 10, 1024) {
+            @Override
+            protected CachedTestObj copy(CachedTestObj cached) {
+                CachedTestObj copy = new CachedTestObj();
+                copy.test = cached.test;
+                return copy;
+            }
+        };
+        CachedTestObj first = parser.parse("<test>1</test>");
+        first.test = 99;
+        CachedTestObj second = parser.parse("<test>1</test>");
+        assertNotSame(first, second);
+        assertEquals(1, (int) second.getTest());
+    }
+
+    @Test
+    public void shouldStreamInputLargerThanCacheToLimitedParser() {
+        ParserFactory factory = new ParserFactory();
+        factory.setMaxInputBytes(100);
+        CachingParser<CachedTestObj> parser = new CachingParser<CachedTestObj>(factory.createXmlParser(CachedTestObj.class), 10, 50);
+        byte[] xml = new byte[1024 * 1024];
+        Arrays.fill(xml, (byte) ' ');
+        System.arraycopy("<test>1</test>".getBytes(), 0, xml, 0, 14);
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(xml));
+        try {
+            parser.parse(stream);
+            fail("Expected input limit to be exceeded");
+        } catch (LimitExceededException e) {
+            assertTrue(stream.getCount() < xml.length / 4);
+        }
+        assertEquals(0, parser.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveLimits() {
+        new CachingParser<CachedTestObj>(delegate, 0, 1024);
+    }
+
+    public static class CachedTestObj implements TestableObject<Integer> {
+        @XPath("/test")
+        private int test;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedInputTest {
+    private Parser<ItemsTestObj> parser;
+    private String xml;
+
+    @Before
+    public void setup() {
+        parser = new ParserFactory().createXmlParser(ItemsTestObj.class);
+        StringBuilder builder = new StringBuilder("<items>");
+        for (int i = 0; i < 2000; i++) {
+            builder.append("<item>").append(i).append("</item>");
+        }
+        xml = builder.append("</items>").toString();
+    }
+
+    @Test
+    public void shouldParseGzipCompressedInput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(xml.getBytes("UTF-8"));
+        gzip.close();
+
+        InputStream stream = CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray()), 2, 64);
+        assertTrue(stream instanceof PipelinedInputStream);
+        assertItems(parser.parse(stream));
+    }
+
+    @Test
+    public void shouldParseDeflateCompressedInput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeflaterOutputStream deflate = new DeflaterOutputStream(bytes);
+        deflate.write(xml.getBytes("UTF-8"));
+        deflate.close();
+
+        InputStream stream = CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray()));
+        assertTrue(stream instanceof PipelinedInputStream);
+        assertItems(parser.parse(stream));
+    }
+
+    @Test
+    public void shouldPassUncompressedInputThrough() throws IOException {
+        InputStream stream = CompressedInput.open(IOUtils.toInputStream(xml));
+        assertFalse(stream instanceof PipelinedInputStream);
+        assertItems(parser.parse(stream));
+    }
+
+    @Test
+    public void shouldReadEveryByteThroughSmallBuffers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(xml.getBytes("UTF-8"));
+        gzip.close();
+
+        InputStream stream = CompressedInput.open(new ByteArrayInputStream(bytes.toByteArray()), 1, 7);
+        assertEquals(xml, IOUtils.toString(stream, "UTF-8"));
+        assertEquals(-1, stream.read());
+        stream.close();
+    }
+
+    @Test(expected = SaxxpException.class)
+    public void shouldReportCorruptCompressedInput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(xml.getBytes("UTF-8"));
+        gzip.close();
+        byte[] corrupt = bytes.toByteArray();
+        for (int i = 20; i < 40; i++) {
+            corrupt[i] = (byte) 0xff;
+        }
+        parser.parse(CompressedInput.open(new ByteArrayInputStream(corrupt)));
+    }
+
+    private void assertItems(ItemsTestObj items) {
+        assertEquals(2000, items.getTest().size());
+        assertEquals(1999, (int) items.getTest().get(1999));
+    }
+
+    public static class ItemsTestObj implements TestableObject<List<Integer>> {
+        @XPath("/items/item")
+        private List<Integer> test;
+
+        public List<Integer> getTest() {
+            return test;
+        }
+    }
+}
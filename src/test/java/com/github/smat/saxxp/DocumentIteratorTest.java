@@ -0,0 +1,157 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+
+import static org.apache.commons.io.IOUtils.toInputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentIteratorTest {
+    private Parser<MessageTestObj> parser;
+
+    @Before
+    public void setup() {
+        parser = new ParserFactory().createXmlParser(MessageTestObj.class);
+    }
+
+    @Test
+    public void shouldParseEachDocumentInStream() {
+        String xml = "<?xml version=\"1.0\"?><message><id>1</id></message>\n"
+                + "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- second --><message><id>2</id></message>"
+                + "<?xml version=\"1.0\"?><message><id>3</id><body>&lt;?xml </body></message>\n\n";
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, toInputStream(xml));
+        assertTrue(documents.hasNext());
+        assertEquals(1, (int) documents.next().getTest());
+        assertEquals(2, (int) documents.next().getTest());
+        MessageTestObj third = documents.next();
+        assertEquals(3, (int) third.getTest());
+        assertEquals("<?xml ", third.getBody());
+        assertFalse(documents.hasNext());
+    }
+
+    @Test
+    public void shouldParseManyDocumentsAcrossBufferBoundaries() throws IOException {
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            xml.append("<?xml version=\"1.0\"?>\n<message><id>").append(i).append("</id><body>");
+            for (int j = 0; j < i % 50; j++) {
+                xml.append("text ");
+            }
+            xml.append("</body></message>\n");
+        }
+        InputStream stream = new TrickleInputStream(xml.toString().getBytes("UTF-8"));
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, stream);
+        int count = 0;
+        while (documents.hasNext()) {
+            assertEquals(count, (int) documents.next().getTest());
+            count++;
+        }
+        assertEquals(2000, count);
+    }
+
+    @Test
+    public void shouldHandleSingleDocumentWithoutDeclaration() {
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, toInputStream("<message><id>7</id></message>"));
+        assertEquals(7, (int) documents.next().getTest());
+        assertFalse(documents.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowWhenStreamIsEmpty() {
+        new DocumentIterator<MessageTestObj>(parser, toInputStream("  \n")).next();
+    }
+
+    @Test(expected = SaxxpException.class)
+    public void shouldReportMalformedDocument() {
+        String xml = "<?xml version=\"1.0\"?><message><id>1</id></message><?xml version=\"1.0\"?><message><id>2</message>";
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, toInputStream(xml));
+        documents.next();
+        documents.next();
+    }
+
+    @Test
+    public void shouldNotSplitAtDeclarationInCDataOrComment() {
+        String xml = "<?xml version=\"1.0\"?><message><id>1</id><body><![CDATA[<?xml version=\"1.0\"?>]]></body></message>"
+                + "<?xml version=\"1.0\"?><!-- <?xml version=\"1.0\"?> --><message><id>2</id></message>";
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, toInputStream(xml));
+        MessageTestObj first = documents.next();
+        assertEquals(1, (int) first.getTest());
+        assertEquals("<?xml version=\"1.0\"?>", first.getBody());
+        assertEquals(2, (int) documents.next().getTest());
+        assertFalse(documents.hasNext());
+    }
+
+    @Test
+    public void shouldSkipByteOrderMarkBeforeDeclaration() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 1; i <= 2; i++) {
+            bytes.write(new byte[]{(byte) 0xef, (byte) 0xbb, (byte) 0xbf});
+            bytes.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?><message><id>" + i + "</id></message>").getBytes("UTF-8"));
+        }
+        DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(1, (int) documents.next().getTest());
+        assertEquals(2, (int) documents.next().getTest());
+        assertFalse(documents.hasNext());
+    }
+
+    @Test
+    public void shouldSkipByteOrderMarkSplitAcrossReads() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 1; i <= 3; i++) {
+            bytes.write(new byte[]{(byte) 0xef, (byte) 0xbb, (byte) 0xbf});
+            bytes.write(("<?xml version=\"1.0\"?><message><id>" + i + "</id><body>\uffe1</body></message>").getBytes("UTF-8"));
+        }
+        for (int chunk = 1; chunk <= 13; chunk++) {
+            DocumentIterator<MessageTestObj> documents = new DocumentIterator<MessageTestObj>(parser, new TrickleInputStream(bytes.toByteArray(), chunk));
+            for (int i = 1; i <= 3; i++) {
+                MessageTestObj message = documents.next();
+                assertEquals(i, (int) message.getTest());
+                assertEquals("\uffe1", message.getBody());
+            }
+            assertFalse(documents.hasNext());
+        }
+    }
+
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        private final int chunk;
+
+        TrickleInputStream(byte[] bytes) {
+            this(bytes, 997);
+        }
+
+        TrickleInputStream(byte[] bytes, int chunk) {
+            super(bytes);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, chunk));
+        }
+    }
+
+    public static class MessageTestObj implements TestableObject<Integer> {
+        @XPath("/message/id")
+        private int test;
+        @XPath("/message/body")
+        private String body;
+
+        public Integer getTest() {
+            return test;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.annotation.XmlEnumIdentifier;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ParserConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 300;
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldParseConsistentlyWithSharedParser() throws Exception {
+        final Parser<OrderTestObj> parser = factory.createXmlParser(OrderTestObj.class);
+        runConcurrently(new Worker() {
+            public void run(int thread, int iteration) {
+                int id = thread * ITERATIONS + iteration;
+                assertOrder(id, parser.parse(order(id)));
+            }
+        });
+    }
+
+    @Test
+    public void shouldResolveNamespacePrefixesWithSharedParser() throws Exception {
+        final Parser<NamespacedOrderTestObj> parser = factory.createXmlParser(NamespacedOrderTestObj.class);
+        runConcurrently(new Worker() {
+            public void run(int thread, int iteration) {
+                int id = thread * ITERATIONS + iteration;
+                NamespacedOrderTestObj order = parser.parse(namespacedOrder(id));
+                assertEquals(id, (int) order.getTest());
+                assertEquals(3, order.getLines().size());
+                for (int i = 0; i < 3; i++) {
+                    assertEquals("line-" + id + "-" + i, order.getLines().get(i).getTest());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shouldParseSharedElementConsistently() throws Exception {
+        final Parser<OrderTestObj> parser = factory.createXmlParser(OrderTestObj.class);
+        final Element element = new SAXBuilder().build(new StringReader(order(42))).getRootElement();
+        runConcurrently(new Worker() {
+            public void run(int thread, int iteration) {
+                OrderTestObj order = parser.parse(element);
+                assertEquals(3, order.getLines().size());
+                assertEquals("line-42-2", order.getLines().get(2).getTest());
+            }
+        });
+    }
+
+    @Test
+    public void shouldParseConsistentlyWithSharedLenientParser() throws Exception {
+        final Parser<ParseResult<OrderTestObj>> parser = factory.createLenientXmlParser(OrderTestObj.class);
+        runConcurrently(new Worker() {
+            public void run(int thread, int iteration) {
+                int id = thread * ITERATIONS + iteration;
+                String xml = iteration % 2 == 0 ? order(id) : order(id).replace("<id>" + id + "</id>", "<id>x" + id + "</id>");
+                ParseResult<OrderTestObj> result = parser.parse(xml);
+                assertEquals(iteration % 2, result.getErrors().size());
+                if (result.hasErrors()) {
+                    assertEquals("x" + id, result.getErrors().get(0).getText());
+                } else {
+                    assertOrder(id, result.getValue());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shouldCreateOneParserPerClassUnderContention() throws Exception {
+        final List<Parser<OrderTestObj>> parsers = new ArrayList<Parser<OrderTestObj>>();
+        runConcurrently(new Worker() {
+            public void run(int thread, int iteration) {
+                Parser<OrderTestObj> parser = factory.createXmlParser(OrderTestObj.class);
+                synchronized (parsers) {
+                    parsers.add(parser);
+                }
+            }
+        });
+        for (Parser<OrderTestObj> parser : parsers) {
+            assertSame(parsers.get(0), parser);
+        }
+    }
+
+    private void runConcurrently(final Worker worker) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            worker.run(thread, i);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String order(int id) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<order><id>").append(id).append("</id>");
+        xml.append("<status>").append(id % 2 == 0 ? "O" : "C").append("</status>");
+        xml.append("<total>").append(id).append(".5</total>");
+        for (int i = 0; i < 3; i++) {
+            xml.append("<line><name>line-").append(id).append("-").append(i).append("</name></line>");
+        }
+        return xml.append("</order>").toString();
+    }
+
+    private static String namespacedOrder(int id) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<o:order xmlns:o=\"urn:order\"><o:id>").append(id).append("</o:id>");
+        for (int i = 0; i < 3; i++) {
+            xml.append("<o:line><o:name>line-").append(id).append("-").append(i).append("</o:name></o:line>");
+        }
+        return xml.append("</o:order>").toString();
+    }
+
+    private static void assertOrder(int id, OrderTestObj order) {
+        assertEquals(id, (int) order.getTest());
+        assertEquals(id % 2 == 0 ? Status.OPEN : Status.CLOSED, order.getStatus());
+        assertEquals(id + 0.5, order.getTotal(), 0.001);
+        assertEquals(3, order.getLines().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("line-" + id + "-" + i, order.getLines().get(i).getTest());
+        }
+    }
+
+    private static interface Worker {
+        void run(int thread, int iteration);
+    }
+
+    public static enum Status {
+        OPEN("O"),
+        CLOSED("C");
+        @XmlEnumIdentifier
+        private final String ident;
+        Status(String ident) {
+            this.ident = ident;
+        }
+    }
+
+    public static class OrderTestObj implements TestableObject<Integer> {
+        @XPath("/order/id")
+        private int test;
+        @XPath("/order/status")
+        private Status status;
+        @XPath("/order/total")
+        private double total;
+        @XPath("/order/line")
+        private List<LineTestObj> lines;
+
+        public Integer getTest() {
+            return test;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+
+        public List<LineTestObj> getLines() {
+            return lines;
+        }
+    }
+
+    public static class NamespacedOrderTestObj implements TestableObject<Integer> {
+        @XPath("/o:order/o:id")
+        private int test;
+        @XPath("/o:order/o:line")
+        private List<NamespacedLineTestObj> lines;
+
+        public Integer getTest() {
+            return test;
+        }
+
+        public List<NamespacedLineTestObj> getLines() {
+            return lines;
+        }
+    }
+
+    public static class NamespacedLineTestObj implements TestableObject<String> {
+        @XPath("o:name")
+        private String test;
+
+        public String getTest() {
+            return test;
+        }
+    }
+
+    public static class LineTestObj implements TestableObject<String> {
+        @XPath("name")
+        private String test;
+
+        public String getTest() {
+            return test;
+        }
+    }
+}
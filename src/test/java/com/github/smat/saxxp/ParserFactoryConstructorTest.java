@@ -0,0 +1,163 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.FieldParseException;
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryConstructorTest {
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldBindConstructorParameters() {
+        ImmutableTestObj obj = factory.createXmlParser(ImmutableTestObj.class).parse("<p><id>3</id><name>n</name><tag>a</tag><tag>b</tag></p>");
+        assertEquals(3, (int) obj.getTest());
+        assertEquals("n", obj.name);
+        assertEquals(Arrays.asList("a", "b"), obj.tags);
+    }
+
+    @Test
+    public void shouldPassDefaultValuesForMissingElements() {
+        ImmutableTestObj obj = factory.createXmlParser(ImmutableTestObj.class).parse("<p/>");
+        assertEquals(0, (int) obj.getTest());
+        assertNull(obj.name);
+        assertTrue(obj.tags.isEmpty());
+    }
+
+    @Test
+    public void shouldSetNonFinalFieldsAfterConstruction() {
+        MixedTestObj obj = factory.createXmlParser(MixedTestObj.class).parse("<p><id>3</id><note>x</note></p>");
+        assertEquals(3, (int) obj.getTest());
+        assertEquals("x", obj.note);
+    }
+
+    @Test
+    public void shouldParseListsOfImmutableObjects() {
+        ListTestObj obj = factory.createXmlParser(ListTestObj.class).parse("<l><p><id>1</id></p><p><id>2</id></p></l>");
+        assertEquals(2, obj.items.size());
+        assertEquals(2, (int) obj.items.get(1).getTest());
+    }
+
+    @Test
+    public void shouldNameParameterInFieldParseException() {
+        try {
+            factory.createXmlParser(ImmutableTestObj.class).parse("<p><id>x</id></p>");
+        } catch (FieldParseException e) {
+            assertEquals("parameter 0", e.getField());
+            return;
+        }
+        throw new AssertionError("Expected FieldParseException");
+    }
+
+    @Test
+    public void shouldCollectParameterErrorsLeniently() {
+        ParseResult<ImmutableTestObj> result = factory.createLenientXmlParser(ImmutableTestObj.class).parse("<p><id>x</id><name>n</name></p>");
+        assertEquals(1, result.getErrors().size());
+        assertEquals("n", result.getValue().name);
+    }
+
+    @Test
+    public void shouldBindRecordThroughCanonicalConstructor() {
+        PointTestRecord point = factory.createXmlParser(PointTestRecord.class).parse("<p><id>4</id><name>n</name><tag>a</tag></p>");
+        assertEquals(4, (int) point.getTest());
+        assertEquals("n", point.name());
+        assertEquals(Arrays.asList("a"), point.tags());
+    }
+
+    @Test
+    public void shouldWrapExceptionThrownByConstructor() {
+        try {
+            factory.createXmlParser(ValidatingTestObj.class).parse("<p><id>-1</id></p>");
+        } catch (SaxxpException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+            return;
+        }
+        throw new AssertionError("Expected SaxxpException");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPartlyAnnotatedConstructor() {
+        factory.createXmlParser(PartlyAnnotatedTestObj.class);
+    }
+
+    public static class ImmutableTestObj implements TestableObject<Integer> {
+        private final int test;
+        private final String name;
+        private final List<String> tags;
+
+        public ImmutableTestObj(@XPath("/p/id") int test, @XPath("/p/name") String name, @XPath("/p/tag") List<String> tags) {
+            this.test = test;
+            this.name = name;
+            this.tags = tags;
+        }
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class MixedTestObj implements TestableObject<Integer> {
+        @XPath("/p/id")
+        private final int test;
+        @XPath("/p/note")
+        private String note;
+
+        public MixedTestObj(@XPath("/p/id") int test) {
+            this.test = test;
+        }
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class ItemTestObj implements TestableObject<Integer> {
+        private final int test;
+
+        public ItemTestObj(@XPath("id") int test) {
+            this.test = test;
+        }
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class ListTestObj {
+        @XPath("/l/p")
+        private List<ItemTestObj> items;
+    }
+
+    public record PointTestRecord(@XPath("/p/id") int test, @XPath("/p/name") String name, @XPath("/p/tag") List<String> tags)
+            implements TestableObject<Integer> {
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class ValidatingTestObj {
+        public ValidatingTestObj(@XPath("/p/id") int id) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative id " + id);
+            }
+        }
+    }
+
+    public static class PartlyAnnotatedTestObj {
+        public PartlyAnnotatedTestObj(@XPath("/p/id") int id, String name) {
+        }
+    }
+}
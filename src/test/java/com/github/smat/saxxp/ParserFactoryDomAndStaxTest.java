@@ -0,0 +1,145 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.LimitExceededException;
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ParserFactoryDomAndStaxTest {
+    private static final String XML = "<order><id>7</id><item>a</item><item>b</item><note>n</note></order>";
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldParseDomDocument() throws Exception {
+        OrderTestObj obj = factory.createSourceParser(OrderTestObj.class).parse(dom(XML));
+        assertEquals(7, (int) obj.getTest());
+        assertEquals(2, obj.items.size());
+        assertEquals("n", obj.note);
+    }
+
+    @Test
+    public void shouldParseDomElementAsRootOfDocument() throws Exception {
+        Document document = dom("<envelope><body>" + XML + "</body></envelope>");
+        org.w3c.dom.Node order = document.getElementsByTagName("order").item(0);
+        OrderTestObj obj = factory.createSourceParser(OrderTestObj.class).parse(order);
+        assertEquals(7, (int) obj.getTest());
+        assertEquals("b", obj.items.get(1));
+    }
+
+    @Test
+    public void shouldParseStaxDocument() throws Exception {
+        XMLStreamReader reader = stax(XML);
+        OrderTestObj obj = factory.createSourceParser(OrderTestObj.class).parse(reader);
+        assertEquals(7, (int) obj.getTest());
+        assertEquals("n", obj.note);
+    }
+
+    @Test
+    public void shouldParseEachStaxElementInTurn() throws Exception {
+        XMLStreamReader reader = stax("<orders>" + XML + XML.replace("7", "8") + "</orders>");
+        SourceParser<OrderTestObj> parser = factory.createSourceParser(OrderTestObj.class);
+        int sum = 0;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("order")) {
+                sum += parser.parse(reader).getTest();
+                assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+            }
+        }
+        assertEquals(15, sum);
+    }
+
+    @Test
+    public void shouldParseDomDocumentLeniently() throws Exception {
+        ParseResult<OrderTestObj> result = factory.createLenientSourceParser(OrderTestObj.class).parse(dom("<order><id>x</id></order>"));
+        assertEquals(1, result.getErrors().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOtherDomNodes() throws Exception {
+        factory.createSourceParser(OrderTestObj.class).parse(dom(XML).createTextNode("text"));
+    }
+
+    @Test
+    public void shouldShareParserWithXmlParser() {
+        assertSame(factory.createXmlParser(OrderTestObj.class), factory.createSourceParser(OrderTestObj.class));
+    }
+
+    @Test
+    public void shouldRejectDomDocumentExceedingLimits() throws Exception {
+        factory.setMaxElements(3);
+        assertRejected(Limit.ELEMENTS, dom(XML));
+        factory.setMaxElements(100);
+        factory.setMaxDepth(1);
+        assertRejected(Limit.DEPTH, dom(XML));
+        factory.setMaxDepth(100);
+        factory.setMaxTextLength(3);
+        assertRejected(Limit.TEXT_LENGTH, dom("<order><note>ab<!-- c --><![CDATA[cd]]></note></order>"));
+    }
+
+    @Test
+    public void shouldRejectStaxDocumentExceedingLimits() throws Exception {
+        factory.setMaxElements(3);
+        assertRejected(Limit.ELEMENTS, stax(XML));
+        factory.setMaxElements(100);
+        factory.setMaxDepth(1);
+        assertRejected(Limit.DEPTH, stax(XML));
+        factory.setMaxDepth(100);
+        factory.setMaxTextLength(3);
+        assertRejected(Limit.TEXT_LENGTH, stax("<order><note>ab<!-- c --><![CDATA[cd]]></note></order>"));
+    }
+
+    private void assertRejected(Limit limit, Object input) {
+        SourceParser<OrderTestObj> parser = factory.createSourceParser(OrderTestObj.class);
+        try {
+            if (input instanceof XMLStreamReader) {
+                parser.parse((XMLStreamReader) input);
+            } else {
+                parser.parse((org.w3c.dom.Node) input);
+            }
+            fail("Expected limit " + limit + " to be exceeded");
+        } catch (LimitExceededException e) {
+            assertEquals(limit, e.getLimit());
+        }
+    }
+
+    private static Document dom(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static XMLStreamReader stax(String xml) throws Exception {
+        return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+    }
+
+    public static class OrderTestObj implements TestableObject<Integer> {
+        @XPath("/order/id")
+        private int test;
+        @XPath("/order/item")
+        private List<String> items;
+        @XPath("/order/note")
+        private String note;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import org.jdom.Element;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryExplainTest {
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldDescribeFieldsAndConverters() {
+        ParserPlan plan = factory.createXmlParser(PlanTestObj.class).explain();
+        assertEquals(PlanTestObj.class.getName(), plan.getName());
+        assertEquals(3, plan.getChildren().size());
+
+        ParserPlan id = plan.getChildren().get(0);
+        assertEquals("test", id.getName());
+        assertEquals("IntegerFieldParser", id.getConverter());
+        assertEquals("/order/id", id.getXPath());
+        assertEquals(ParserPlan.Cost.CHILD_WALK, id.getCost());
+
+        ParserPlan lines = plan.getChildren().get(2);
+        assertEquals("ListFieldParser", lines.getConverter());
+        ParserPlan line = lines.getChildren().get(0);
+        assertEquals(LineTestObj.class.getName(), line.getName());
+        assertEquals(ParserPlan.Cost.CONSTANT, line.getChildren().get(0).getCost());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotRequireOtherParsersToDescribeTheirPlan() {
+        new Parser<String>() {
+            public String parse(String xml) {
+                return xml;
+            }
+
+            public String parse(InputStream stream) {
+                return null;
+            }
+
+            public String parse(Element element) {
+                return element.getText();
+            }
+        }.explain();
+    }
+
+    @Test
+    public void shouldWarnAboutExpensiveXPaths() {
+        ParserPlan plan = factory.createXmlParser(PlanTestObj.class).explain();
+        assertEquals(ParserPlan.Cost.FULL_SCAN, plan.getChildren().get(1).getCost());
+        assertEquals(ParserPlan.Cost.NON_STREAMABLE, plan.getCost());
+
+        List<String> warnings = plan.getWarnings();
+        assertEquals(3, warnings.size());
+        assertTrue(warnings.get(0).startsWith("customer: '//customer'"));
+        assertTrue(warnings.get(1).startsWith("price: '/order/price'"));
+        assertTrue(warnings.get(2).startsWith("note: 'note[1]'"));
+        assertTrue(plan.toString().contains("  lines [ListFieldParser, /order/line, NON_STREAMABLE]"));
+    }
+
+    @Test
+    public void shouldClassifyXPaths() {
+        assertEquals(ParserPlan.Cost.CONSTANT, ParserPlan.classify("."));
+        assertEquals(ParserPlan.Cost.CONSTANT, ParserPlan.classify("@id"));
+        assertEquals(ParserPlan.Cost.CHILD_WALK, ParserPlan.classify("a/b/text()"));
+        assertEquals(ParserPlan.Cost.FULL_SCAN, ParserPlan.classify("/a/descendant::b"));
+        assertEquals(ParserPlan.Cost.NON_STREAMABLE, ParserPlan.classify("../b"));
+        assertEquals(ParserPlan.Cost.NON_STREAMABLE, ParserPlan.classify("count(/a/b)"));
+    }
+
+    public static class PlanTestObj implements TestableObject<Integer> {
+        @XPath("/order/id")
+        private int test;
+        @XPath("//customer")
+        private String customer;
+        @XPath("/order/line")
+        private List<LineTestObj> lines;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class LineTestObj {
+        @XPath("@sku")
+        private String sku;
+        @XPath("/order/price")
+        private double price;
+        @XPath("note[1]")
+        private String note;
+    }
+}
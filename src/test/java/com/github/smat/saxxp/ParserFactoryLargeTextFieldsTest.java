@@ -0,0 +1,178 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.FieldParseException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ParserFactoryLargeTextFieldsTest {
+    private static final String HELLO_BASE64 = "aGVsbG8gd29y\nbGQ=";
+    private static final byte[] HELLO = {'h', 'e', 'l', 'l', 'o', ' ', 'w', 'o', 'r', 'l', 'd'};
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldDecodeBase64ToByteArray() {
+        ByteArrayTestObj obj = factory.createXmlParser(ByteArrayTestObj.class).parse("<test>" + HELLO_BASE64 + "</test>");
+        assertArrayEquals(HELLO, obj.getTest());
+    }
+
+    @Test
+    public void shouldDecodeSpilledBase64ToByteArray() {
+        factory.setLargeTextThreshold(4);
+        ByteArrayTestObj obj = factory.createXmlParser(ByteArrayTestObj.class).parse("<test>" + HELLO_BASE64 + "</test>");
+        assertArrayEquals(HELLO, obj.getTest());
+    }
+
+    @Test(expected = FieldParseException.class)
+    public void shouldRejectInvalidBase64() {
+        factory.createXmlParser(ByteArrayTestObj.class).parse("<test>a*b=</test>");
+    }
+
+    @Test
+    public void shouldLeaveMissingByteArrayNull() {
+        assertNull(factory.createXmlParser(ByteArrayTestObj.class).parse("<other/>").getTest());
+    }
+
+    @Test
+    public void shouldStreamSpilledBase64ToInputStream() throws IOException {
+        factory.setLargeTextThreshold(4);
+        InputStreamTestObj obj = factory.createXmlParser(InputStreamTestObj.class).parse("<test>" + HELLO_BASE64 + "</test>");
+        assertArrayEquals(HELLO, IOUtils.toByteArray(obj.getTest()));
+    }
+
+    @Test
+    public void shouldReadSpilledTextFromReader() throws IOException {
+        factory.setLargeTextThreshold(4);
+        ReaderTestObj obj = factory.createXmlParser(ReaderTestObj.class).parse("<test>a &amp; <![CDATA[<b>]]> c</test>");
+        assertEquals("a & <b> c", IOUtils.toString(obj.getTest()));
+    }
+
+    @Test
+    public void shouldKeepSpilledTextAsCharSequence() {
+        factory.setLargeTextThreshold(4);
+        CharSequenceTestObj obj = factory.createXmlParser(CharSequenceTestObj.class).parse("<test>some long text</test>");
+        assertEquals("some long text", obj.getTest().toString());
+        assertEquals(14, obj.getTest().length());
+    }
+
+    @Test
+    public void shouldKeepSpilledTextWithWideCharactersAsCharSequence() throws IOException {
+        factory.setLargeTextThreshold(4);
+        String text = "plain ascii, then æøå and 日本語 😀";
+        CharSequenceTestObj obj = factory.createXmlParser(CharSequenceTestObj.class).parse(utf8("<test>" + text + "</test>"));
+        assertEquals(text, obj.getTest().toString());
+        assertEquals(text.length(), obj.getTest().length());
+    }
+
+    @Test
+    public void shouldReadSpilledLatin1TextByIndex() throws IOException {
+        factory.setLargeTextThreshold(4);
+        CharSequence text = factory.createXmlParser(CharSequenceTestObj.class).parse(utf8("<test>some æøå text</test>")).getTest();
+        assertEquals('æ', text.charAt(5));
+        assertEquals("æøå", text.subSequence(5, 8).toString());
+    }
+
+    @Test
+    public void shouldRemoveSpillFiles() {
+        File tmp = new File(System.getProperty("java.io.tmpdir"));
+        int before = spillFiles(tmp);
+        factory.setLargeTextThreshold(4);
+        CharSequence text = factory.createXmlParser(CharSequenceTestObj.class).parse("<test>some long text</test>").getTest();
+        assertEquals(before, spillFiles(tmp));
+        assertEquals("some long text", text.toString());
+    }
+
+    private static InputStream utf8(String xml) throws IOException {
+        return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+    }
+
+    private static int spillFiles(File directory) {
+        String[] names = directory.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith("saxxp") && name.endsWith(".text");
+            }
+        });
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void shouldKeepShortTextAsCharSequence() {
+        CharSequenceTestObj obj = factory.createXmlParser(CharSequenceTestObj.class).parse("<test>short</test>");
+        assertEquals("short", obj.getTest().toString());
+    }
+
+    @Test
+    public void shouldStillParseSpilledTextToString() {
+        factory.setLargeTextThreshold(4);
+        StringTestObj obj = factory.createXmlParser(StringTestObj.class).parse("<root><test>some long text</test><b>x</b></root>");
+        assertEquals("some long text", obj.getTest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveThreshold() {
+        factory.setLargeTextThreshold(0);
+    }
+
+    public static class ByteArrayTestObj implements TestableObject<byte[]> {
+        @XPath("/test")
+        private byte[] test;
+
+        public byte[] getTest() {
+            return test;
+        }
+    }
+
+    public static class InputStreamTestObj implements TestableObject<InputStream> {
+        @XPath("/test")
+        private InputStream test;
+
+        public InputStream getTest() {
+            return test;
+        }
+    }
+
+    public static class ReaderTestObj implements TestableObject<Reader> {
+        @XPath("/test")
+        private Reader test;
+
+        public Reader getTest() {
+            return test;
+        }
+    }
+
+    public static class CharSequenceTestObj implements TestableObject<CharSequence> {
+        @XPath("/test")
+        private CharSequence test;
+
+        public CharSequence getTest() {
+            return test;
+        }
+    }
+
+    public static class StringTestObj implements TestableObject<String> {
+        @XPath("/root/test")
+        private String test;
+
+        public String getTest() {
+            return test;
+        }
+    }
+}
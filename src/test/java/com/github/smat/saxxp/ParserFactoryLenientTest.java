@@ -0,0 +1,169 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.FieldParseException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryLenientTest {
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldCollectErrorsForMalformedValues() {
+        Parser<ParseResult<SeveralFieldsTestObj>> parser = factory.createLenientXmlParser(SeveralFieldsTestObj.class);
+        ParseResult<SeveralFieldsTestObj> result = parser.parse("<test><int>x1</int><double>abc</double><string>s</string></test>");
+        assertEquals("s", result.getValue().getTest());
+        assertEquals(0, result.getValue().getTestInt());
+        assertEquals(2, result.getErrors().size());
+
+        FieldError error = result.getErrors().get(0);
+        assertEquals("testInt", error.getField());
+        assertEquals("/test/int", error.getXPath());
+        assertEquals("x1", error.getText());
+        assertEquals("not a number", error.getReason());
+        assertEquals("testDouble", result.getErrors().get(1).getField());
+    }
+
+    @Test
+    public void shouldReportNoErrorsForWellFormedValues() {
+        Parser<ParseResult<SeveralFieldsTestObj>> parser = factory.createLenientXmlParser(SeveralFieldsTestObj.class);
+        ParseResult<SeveralFieldsTestObj> result = parser.parse("<test><int>1</int><double>2.5</double><string>s</string></test>");
+        assertFalse(result.hasErrors());
+        assertEquals(1, result.getValue().getTestInt());
+    }
+
+    @Test
+    public void shouldReportListFieldForMalformedListElement() {
+        Parser<ParseResult<ListTestObj>> parser = factory.createLenientXmlParser(ListTestObj.class);
+        ParseResult<ListTestObj> result = parser.parse("<test><array>1</array><array>b</array></test>");
+        assertTrue(result.hasErrors());
+        assertEquals("test", result.getErrors().get(0).getField());
+        assertEquals("/test/array", result.getErrors().get(0).getXPath());
+        assertEquals("b", result.getErrors().get(0).getText());
+    }
+
+    @Test
+    public void shouldKeepParsingListsAndArraysAfterMalformedElement() {
+        Parser<ParseResult<NestedListsTestObj>> parser = factory.createLenientXmlParser(NestedListsTestObj.class);
+        ParseResult<NestedListsTestObj> result = parser.parse("<o><l><n>1</n></l><l><n>bad</n></l><l><n>3</n></l>"
+                + "<a><n>1</n></a><a><n>bad</n></a><a><n>4</n></a><i>5</i><i>x</i><i>6</i></o>");
+        NestedListsTestObj value = result.getValue();
+        assertEquals(3, value.list.size());
+        assertEquals(3, value.list.get(2).n);
+        assertEquals(3, value.arr.length);
+        assertEquals(4, value.arr[2].n);
+        assertEquals(2, value.ints.length);
+        assertEquals(6, value.ints[1]);
+
+        assertEquals(3, result.getErrors().size());
+        assertEquals("list", result.getErrors().get(0).getField());
+        assertEquals("/o/l", result.getErrors().get(0).getXPath());
+        assertEquals("bad", result.getErrors().get(0).getText());
+        assertEquals("arr", result.getErrors().get(1).getField());
+        assertEquals("ints", result.getErrors().get(2).getField());
+    }
+
+    @Test
+    public void shouldReportUnknownEnumIdentifier() {
+        Parser<ParseResult<EnumTestObj>> parser = factory.createLenientXmlParser(EnumTestObj.class);
+        ParseResult<EnumTestObj> result = parser.parse("<test><status>X</status><string>s</string></test>");
+        assertEquals("s", result.getValue().getTest());
+        assertNull(result.getValue().getStatus());
+        assertEquals(1, result.getErrors().size());
+
+        FieldError error = result.getErrors().get(0);
+        assertEquals("status", error.getField());
+        assertEquals("/test/status", error.getXPath());
+        assertEquals("X", error.getText());
+        assertEquals("not an identifier of EnumImpl", error.getReason());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownEnumIdentifierInStrictMode() {
+        Parser<EnumTestObj> parser = factory.createXmlParser(EnumTestObj.class);
+        EnumTestObj value = parser.parse("<test><status>X</status><string>s</string></test>");
+        assertEquals("s", value.getTest());
+        assertNull(value.getStatus());
+    }
+
+    @Test
+    public void shouldThrowFieldParseExceptionInStrictMode() {
+        Parser<SeveralFieldsTestObj> parser = factory.createXmlParser(SeveralFieldsTestObj.class);
+        try {
+            parser.parse("<test><int>99999999999</int></test>");
+        } catch (FieldParseException e) {
+            assertEquals("testInt", e.getField());
+            assertEquals("out of range", e.getReason());
+            assertEquals(0, e.getStackTrace().length);
+            return;
+        }
+        throw new AssertionError("Expected FieldParseException");
+    }
+
+    public static class SeveralFieldsTestObj implements TestableObject<String> {
+        @XPath("/test/string")
+        private String test;
+        @XPath("/test/int")
+        private int testInt;
+        @XPath("/test/double")
+        private double testDouble;
+
+        public String getTest() {
+            return test;
+        }
+
+        public int getTestInt() {
+            return testInt;
+        }
+    }
+
+    public static class EnumTestObj implements TestableObject<String> {
+        @XPath("/test/string")
+        private String test;
+        @XPath("/test/status")
+        private ParserFactoryEnumFieldsTest.EnumImpl status;
+
+        public String getTest() {
+            return test;
+        }
+
+        public ParserFactoryEnumFieldsTest.EnumImpl getStatus() {
+            return status;
+        }
+    }
+
+    public static class ElementTestObj {
+        @XPath("n")
+        private int n;
+    }
+
+    public static class NestedListsTestObj {
+        @XPath("/o/l")
+        private List<ElementTestObj> list;
+        @XPath("/o/a")
+        private ElementTestObj[] arr;
+        @XPath("/o/i")
+        private int[] ints;
+    }
+
+    public static class ListTestObj implements TestableObject<List<Integer>> {
+        @XPath("/test/array")
+        private List<Integer> test;
+
+        public List<Integer> getTest() {
+            return test;
+        }
+    }
+}
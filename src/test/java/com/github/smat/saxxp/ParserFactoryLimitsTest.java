@@ -0,0 +1,141 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.LimitExceededException;
+import com.github.smat.saxxp.exception.LimitExceededException.Limit;
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParserFactoryLimitsTest {
+    private static final String XML = "<test><item>1</item><item>2</item><item>3</item></test>";
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldParseWithinLimits() {
+        factory.setMaxInputBytes(XML.length());
+        factory.setMaxDepth(2);
+        factory.setMaxElements(4);
+        factory.setMaxListLength(3);
+        factory.setMaxTextLength(1);
+        assertEquals(3, factory.createXmlParser(ListTestObj.class).parse(XML).items.size());
+    }
+
+    @Test
+    public void shouldRejectTooManyInputBytes() {
+        factory.setMaxInputBytes(XML.length() - 1);
+        assertRejected(Limit.INPUT_BYTES, XML);
+    }
+
+    @Test
+    public void shouldRejectTooDeepNesting() {
+        factory.setMaxDepth(2);
+        assertRejected(Limit.DEPTH, "<test><a><b/></a></test>");
+    }
+
+    @Test
+    public void shouldRejectTooManyElements() {
+        factory.setMaxElements(3);
+        assertRejected(Limit.ELEMENTS, XML);
+    }
+
+    @Test
+    public void shouldRejectTooLongLists() {
+        factory.setMaxListLength(2);
+        assertRejected(Limit.LIST_LENGTH, XML);
+    }
+
+    @Test
+    public void shouldRejectTooLongText() {
+        factory.setMaxTextLength(5);
+        assertRejected(Limit.TEXT_LENGTH, "<test><item>123456</item></test>");
+    }
+
+    @Test
+    public void shouldRejectTooLongTextSpilledToFile() {
+        factory.setLargeTextThreshold(2);
+        factory.setMaxTextLength(5);
+        assertRejected(Limit.TEXT_LENGTH, "<test><item>123456</item></test>");
+    }
+
+    @Test
+    public void shouldCountTextAcrossCommentsCDataAndEntities() {
+        factory.setMaxTextLength(5);
+        assertRejected(Limit.TEXT_LENGTH, "<test><item>12<!-- x -->3&amp;<![CDATA[56]]></item></test>");
+    }
+
+    @Test
+    public void shouldCountRejections() {
+        factory.setMaxDepth(1);
+        Parser<ListTestObj> parser = factory.createXmlParser(ListTestObj.class);
+        for (int i = 0; i < 3; i++) {
+            try {
+                parser.parse(XML);
+            } catch (LimitExceededException ignore) {
+            }
+        }
+        assertEquals(3, factory.getRejections(Limit.DEPTH));
+        assertEquals(0, factory.getRejections(Limit.ELEMENTS));
+    }
+
+    @Test
+    public void shouldRejectLimitsInLenientParser() {
+        factory.setMaxListLength(1);
+        try {
+            factory.createLenientXmlParser(ListTestObj.class).parse(XML);
+            fail("Expected LimitExceededException");
+        } catch (LimitExceededException e) {
+            assertEquals(Limit.LIST_LENGTH, e.getLimit());
+        }
+    }
+
+    @Test(expected = SaxxpException.class)
+    public void shouldRejectEntityExpansion() {
+        StringBuilder xml = new StringBuilder("<!DOCTYPE test [<!ENTITY a \"aaaaaaaaaa\">");
+        String previous = "a";
+        for (int i = 0; i < 10; i++) {
+            String entity = "e" + i;
+            xml.append("<!ENTITY ").append(entity).append(" \"");
+            for (int j = 0; j < 10; j++) {
+                xml.append('&').append(previous).append(';');
+            }
+            xml.append("\">");
+            previous = entity;
+        }
+        xml.append("]><test><item>&").append(previous).append(";</item></test>");
+        factory.createXmlParser(ListTestObj.class).parse(xml.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveLimit() {
+        factory.setMaxDepth(0);
+    }
+
+    private void assertRejected(Limit limit, String xml) {
+        try {
+            factory.createXmlParser(ListTestObj.class).parse(xml);
+            fail("Expected LimitExceededException");
+        } catch (LimitExceededException e) {
+            assertEquals(limit, e.getLimit());
+            assertTrue(e.getMessage().contains(limit.toString()));
+            assertEquals(1, factory.getRejections(limit));
+        }
+    }
+
+    public static class ListTestObj {
+        @XPath("/test/item")
+        private List<String> items;
+    }
+}
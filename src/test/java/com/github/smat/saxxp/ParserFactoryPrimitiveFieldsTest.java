@@ -1,6 +1,7 @@
 package com.github.smat.saxxp;
 
 import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.FieldParseException;
 import com.github.smat.saxxp.exception.SaxxpException;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,6 +26,39 @@ public class ParserFactoryPrimitiveFieldsTest {
         testIfParsable(IntegerTestObj.class, 0, "");
     }
 
+    @Test
+    public void shouldParseNegativeInteger() throws SaxxpException {
+        testIfParsable(IntegerTestObj.class, -12);
+    }
+
+    @Test(expected = FieldParseException.class)
+    public void shouldThrowFieldParseExceptionForMalformedInteger() {
+        testIfParsable(IntegerTestObj.class, 0, "1a");
+    }
+
+    @Test(expected = FieldParseException.class)
+    public void shouldThrowFieldParseExceptionForIntegerOutOfRange() {
+        testIfParsable(IntegerTestObj.class, 0, "2147483648");
+    }
+
+    @Test
+    public void shouldParseIntegerLimits() {
+        testIfParsable(IntegerTestObj.class, Integer.MAX_VALUE);
+        testIfParsable(IntegerTestObj.class, Integer.MIN_VALUE);
+        testIfParsable(LongTestObj.class, Long.MIN_VALUE);
+        testIfParsable(ByteTestObj.class, Byte.MIN_VALUE);
+    }
+
+    @Test(expected = FieldParseException.class)
+    public void shouldThrowFieldParseExceptionForByteOutOfRange() {
+        testIfParsable(ByteTestObj.class, (byte) 0, "128");
+    }
+
+    @Test(expected = FieldParseException.class)
+    public void shouldThrowFieldParseExceptionForMalformedDouble() {
+        testIfParsable(DoubleTestObj.class, 0.0, "1,5");
+    }
+
     @Test
     public void shouldParseFloat() throws SaxxpException {
         testIfParsable(FloatTestObj.class, 1.0F);
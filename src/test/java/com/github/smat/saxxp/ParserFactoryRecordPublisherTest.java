@@ -0,0 +1,138 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.exception.LimitExceededException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.apache.commons.io.IOUtils.toInputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryRecordPublisherTest {
+    private static final String XML = "<feed><title>t</title>"
+            + "<entry><id>1</id></entry>"
+            + "<group><entry><id>2</id></entry></group>"
+            + "<entry><id>3</id></entry>"
+            + "</feed>";
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldOnlyParseRequestedRecords() {
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "/feed/entry", toInputStream(XML));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.records.isEmpty());
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.records.size());
+        assertEquals(1, (int) subscriber.records.get(0).getTest());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(5);
+        assertEquals(2, subscriber.records.size());
+        assertEquals(3, (int) subscriber.records.get(1).getTest());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void shouldFindRecordsAnywhereWithDescendantPath() {
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "//entry", toInputStream(XML));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(3, subscriber.records.size());
+        assertEquals(2, (int) subscriber.records.get(1).getTest());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void shouldStopEmittingWhenCancelled() {
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "//entry", toInputStream(XML));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.records.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void shouldSignalErrorOnMalformedInput() {
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "//entry", toInputStream("<feed><entry><id>1</id></feed>"));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.error != null);
+    }
+
+    @Test
+    public void shouldSignalErrorOnNonPositiveRequest() {
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "//entry", toInputStream(XML));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.records.isEmpty());
+    }
+
+    @Test
+    public void shouldSignalErrorWhenStreamExceedsLimits() {
+        factory.setMaxElements(5);
+        Flow.Publisher<EntryTestObj> publisher = factory.createRecordPublisher(EntryTestObj.class, "//entry", toInputStream(XML));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(5);
+        assertEquals(1, subscriber.records.size());
+        assertTrue(subscriber.error instanceof LimitExceededException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonStreamableRecordXPath() {
+        factory.createRecordPublisher(EntryTestObj.class, "/feed/entry[1]", toInputStream(XML));
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<EntryTestObj> {
+        private final List<EntryTestObj> records = new ArrayList<EntryTestObj>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(EntryTestObj record) {
+            records.add(record);
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    public static class EntryTestObj implements TestableObject<Integer> {
+        @XPath("id")
+        private int test;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+}
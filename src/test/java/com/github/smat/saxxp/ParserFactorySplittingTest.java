@@ -0,0 +1,122 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParserFactorySplittingTest {
+    private ParserFactory factory;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        factory = new ParserFactory();
+        file = File.createTempFile("saxxp", ".xml");
+    }
+
+    @After
+    public void teardown() {
+        file.delete();
+    }
+
+    @Test
+    public void shouldParseRecordsInDocumentOrder() throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<records>\n");
+        for (int i = 0; i < 1000; i++) {
+            xml.append("  <record><id>").append(i).append("</id><name>n").append(i).append("</name></record>\n");
+        }
+        xml.append("</records>");
+        FileUtils.writeStringToFile(file, xml.toString(), "UTF-8");
+
+        List<RecordTestObj> records = factory.createSplittingParser(RecordTestObj.class, "record", 4).parse(file);
+        assertEquals(1000, records.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) records.get(i).getTest());
+            assertEquals("n" + i, records.get(i).getName());
+        }
+    }
+
+    @Test
+    public void shouldParseAllRecordsUnordered() throws IOException {
+        StringBuilder xml = new StringBuilder("<records>");
+        for (int i = 0; i < 500; i++) {
+            xml.append("<record><id>").append(i).append("</id></record>");
+        }
+        xml.append("</records>");
+        FileUtils.writeStringToFile(file, xml.toString(), "UTF-8");
+
+        final List<Integer> ids = Collections.synchronizedList(new ArrayList<Integer>());
+        factory.createSplittingParser(RecordTestObj.class, "record", 3).parse(file, false, new RecordHandler<RecordTestObj>() {
+            public void handle(RecordTestObj record) {
+                ids.add(record.getTest());
+            }
+        });
+        Collections.sort(ids);
+        assertEquals(500, ids.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, (int) ids.get(i));
+        }
+    }
+
+    @Test
+    public void shouldFindRecordsWithAttributesAndSimilarNames() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><records>"
+                + "<recordset><id>9</id></recordset>"
+                + "<record type=\"a>b\"><id>1</id><name>æ</name></record>"
+                + "<record id='2'/>"
+                + "<record\n><id>3</id></record >"
+                + "</records>";
+        FileUtils.writeStringToFile(file, xml, "ISO-8859-1");
+
+        List<RecordTestObj> records = factory.createSplittingParser(RecordTestObj.class, "record", 2).parse(file);
+        assertEquals(3, records.size());
+        assertEquals(1, (int) records.get(0).getTest());
+        assertEquals("æ", records.get(0).getName());
+        assertEquals(0, (int) records.get(1).getTest());
+        assertEquals(3, (int) records.get(2).getTest());
+    }
+
+    @Test
+    public void shouldBindNamespacePrefixesDeclaredOnEnclosingElements() throws IOException {
+        String xml = "<?xml version=\"1.0\"?><feed xmlns:x=\"urn:x\" xmlns:y='urn:y'><x:meta a=\"/\"/><entries xmlns:y=\"urn:y2\">"
+                + "<record x:a=\"1\"><id>1</id><y:name>n1</y:name></record>"
+                + "<record xmlns:x=\"urn:x2\" x:a=\"2\"><id>2</id></record>"
+                + "</entries></feed>";
+        FileUtils.writeStringToFile(file, xml, "UTF-8");
+
+        List<RecordTestObj> records = factory.createSplittingParser(RecordTestObj.class, "record", 2).parse(file);
+        assertEquals(2, records.size());
+        assertEquals(1, (int) records.get(0).getTest());
+        assertEquals(2, (int) records.get(1).getTest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectZeroThreads() {
+        factory.createSplittingParser(RecordTestObj.class, "record", 0);
+    }
+
+    public static class RecordTestObj implements TestableObject<Integer> {
+        @XPath("id")
+        private int test;
+        @XPath("name")
+        private String name;
+
+        public Integer getTest() {
+            return test;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.annotation.XmlSubtype;
+import com.github.smat.saxxp.annotation.XmlSubtypes;
+import com.github.smat.saxxp.exception.SaxxpException;
+import org.jdom.Element;
+import org.jdom.input.SAXBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactorySubtypesTest {
+    private static final String FEED = "<feed>"
+            + "<created><id>1</id><name>a</name></created>"
+            + "<updated><id>2</id><name>b</name><version>3</version></updated>"
+            + "<deleted><id>4</id></deleted>"
+            + "</feed>";
+
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldParseInheritedFields() throws Exception {
+        UpdatedTestObj obj = factory.createXmlParser(UpdatedTestObj.class).parse(root("<updated><id>2</id><name>b</name><version>3</version></updated>"));
+        assertEquals(2, (int) obj.getTest());
+        assertEquals("b", obj.name);
+        assertEquals(3, obj.version);
+    }
+
+    @Test
+    public void shouldParseListElementsAsSubtypesByElementName() {
+        FeedTestObj feed = factory.createXmlParser(FeedTestObj.class).parse(FEED);
+        assertEquals(3, feed.events.size());
+        assertTrue(feed.events.get(0) instanceof CreatedTestObj);
+        assertEquals("a", ((CreatedTestObj) feed.events.get(0)).name);
+        assertEquals(3, ((UpdatedTestObj) feed.events.get(1)).version);
+        assertTrue(feed.events.get(2) instanceof DeletedTestObj);
+        assertEquals(4, (int) feed.events.get(2).getTest());
+    }
+
+    @Test
+    public void shouldParseElementAsSubtype() throws Exception {
+        EventTestObj event = factory.createXmlParser(EventTestObj.class).parse(root("<deleted><id>9</id></deleted>"));
+        assertTrue(event instanceof DeletedTestObj);
+        assertEquals(9, (int) event.getTest());
+    }
+
+    @Test
+    public void shouldSelectSubtypeByAttribute() {
+        ShapesTestObj shapes = factory.createXmlParser(ShapesTestObj.class).parse(
+                "<shapes><shape kind=\"circle\"><r>2</r></shape><shape kind=\"other\"/></shapes>");
+        assertEquals(2, shapes.shapes.length);
+        assertEquals(2, ((CircleTestObj) shapes.shapes[0]).radius);
+        assertEquals(ShapeTestObj.class, shapes.shapes[1].getClass());
+    }
+
+    @Test(expected = SaxxpException.class)
+    public void shouldRejectUnknownElementForAbstractClass() {
+        factory.createXmlParser(EventTestObj.class).parse("<renamed><id>1</id></renamed>");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSubtypeWhichIsNotASubclass() {
+        factory.createXmlParser(InvalidSubtypeTestObj.class);
+    }
+
+    private static Element root(String xml) throws Exception {
+        return new SAXBuilder().build(new StringReader(xml)).getRootElement();
+    }
+
+    @XmlSubtypes({
+            @XmlSubtype(name = "created", type = CreatedTestObj.class),
+            @XmlSubtype(name = "updated", type = UpdatedTestObj.class),
+            @XmlSubtype(name = "deleted", type = DeletedTestObj.class)
+    })
+    public static abstract class EventTestObj implements TestableObject<Integer> {
+        @XPath("id")
+        private int test;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class CreatedTestObj extends EventTestObj {
+        @XPath("name")
+        String name;
+    }
+
+    public static class UpdatedTestObj extends CreatedTestObj {
+        @XPath("version")
+        private int version;
+    }
+
+    public static class DeletedTestObj extends EventTestObj {
+    }
+
+    public static class FeedTestObj {
+        @XPath("/feed/*")
+        private List<EventTestObj> events;
+    }
+
+    @XmlSubtypes(attribute = "kind", value = @XmlSubtype(name = "circle", type = CircleTestObj.class))
+    public static class ShapeTestObj {
+    }
+
+    public static class CircleTestObj extends ShapeTestObj {
+        @XPath("r")
+        private int radius;
+    }
+
+    public static class ShapesTestObj {
+        @XPath("/shapes/shape")
+        private ShapeTestObj[] shapes;
+    }
+
+    @XmlSubtypes(@XmlSubtype(name = "x", type = ShapeTestObj.class))
+    public static class InvalidSubtypeTestObj {
+    }
+}
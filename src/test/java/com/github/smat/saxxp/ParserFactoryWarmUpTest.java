@@ -0,0 +1,66 @@
+package com.github.smat.saxxp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryWarmUpTest {
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldCreateParsersForAllClasses() {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(ParserFactoryPrimitiveFieldsTest.IntegerTestObj.class);
+        classes.add(ParserFactoryCollectionFieldsTest.ListOfAnnotatedClassTestObj.class);
+        WarmUpReport report = factory.warmUp(classes, 2, true);
+
+        assertEquals(2, report.getDurations().size());
+        assertTrue(report.getFailures().isEmpty());
+        assertTrue(report.getTotalNanos() > 0);
+        Parser<ParserFactoryPrimitiveFieldsTest.IntegerTestObj> parser = factory.createXmlParser(ParserFactoryPrimitiveFieldsTest.IntegerTestObj.class);
+        assertSame(parser, factory.createXmlParser(ParserFactoryPrimitiveFieldsTest.IntegerTestObj.class));
+    }
+
+    @Test
+    public void shouldWarmUpAbstractClassThroughItsSubtypes() {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(ParserFactorySubtypesTest.EventTestObj.class);
+        classes.add(ParserFactorySubtypesTest.ShapeTestObj.class);
+        WarmUpReport report = factory.warmUp(classes, 2, true);
+
+        assertEquals(2, report.getDurations().size());
+        assertTrue(report.getFailures().isEmpty());
+    }
+
+    @Test
+    public void shouldReportClassesWhichCanNotBeParsed() {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(ParserFactoryTest.ErrornousXPathTestObj.class);
+        classes.add(ParserFactoryPrimitiveFieldsTest.StringTestObj.class);
+        WarmUpReport report = factory.warmUp(classes, 1, false);
+
+        assertEquals(1, report.getDurations().size());
+        assertTrue(report.getFailures().get(ParserFactoryTest.ErrornousXPathTestObj.class) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void shouldFindAnnotatedClassesInPackage() {
+        WarmUpReport report = factory.warmUp("com.github.smat.saxxp", 4, false);
+        assertTrue(report.getDurations().containsKey(ParserFactoryPrimitiveFieldsTest.IntegerTestObj.class));
+        assertTrue(report.getDurations().containsKey(ParserFactoryCollectionFieldsTest.SeveralAnnotatedFieldsTestObject.class));
+        assertTrue(report.getFailures().containsKey(ParserFactoryTest.ErrornousXPathTestObj.class));
+        assertFalse(report.getDurations().containsKey(TestableObject.class));
+    }
+}
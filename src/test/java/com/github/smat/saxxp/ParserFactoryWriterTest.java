@@ -0,0 +1,221 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import com.github.smat.saxxp.annotation.XmlEnumIdentifier;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParserFactoryWriterTest {
+    private ParserFactory factory;
+
+    @Before
+    public void setup() {
+        factory = new ParserFactory();
+    }
+
+    @Test
+    public void shouldWriteFieldsInDeclarationOrder() {
+        OrderTestObj order = new OrderTestObj();
+        order.test = 7;
+        order.customer = "Ann & Bob";
+        order.status = Status.SHIPPED;
+        order.tags = new String[]{"a", "<b>"};
+        assertEquals("<order><id>7</id><customer><name>Ann &amp; Bob</name></customer><status>S</status>"
+                + "<tag>a</tag><tag>&lt;b&gt;</tag></order>", factory.createXmlWriter(OrderTestObj.class).write(order));
+    }
+
+    @Test
+    public void shouldLeaveOutElementsWithoutValues() {
+        OrderTestObj order = new OrderTestObj();
+        order.test = 1;
+        assertEquals("<order><id>1</id></order>", factory.createXmlWriter(OrderTestObj.class).write(order));
+    }
+
+    @Test
+    public void shouldWriteNestedClassesOfLists() {
+        CartTestObj cart = new CartTestObj();
+        cart.items = Arrays.asList(new ItemTestObj("x", 2), new ItemTestObj("y", 3));
+        assertEquals("<cart><items><item><sku>x</sku><count>2</count></item><item><sku>y</sku><count>3</count></item></items></cart>",
+                factory.createXmlWriter(CartTestObj.class).write(cart));
+    }
+
+    @Test
+    public void shouldRoundTripThroughParser() {
+        OrderTestObj order = new OrderTestObj();
+        order.test = 42;
+        order.customer = "æøå 😀";
+        order.status = Status.NEW;
+        order.tags = new String[]{"one", "two"};
+        order.data = new byte[]{0, 1, 2, -1, -2};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        factory.createXmlWriter(OrderTestObj.class).write(order, bytes);
+        OrderTestObj parsed = factory.createXmlParser(OrderTestObj.class).parse(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(42, (int) parsed.getTest());
+        assertEquals(order.customer, parsed.customer);
+        assertSame(Status.NEW, parsed.status);
+        assertArrayEquals(order.tags, parsed.tags);
+        assertArrayEquals(order.data, parsed.data);
+        assertEquals(0, parsed.initial);
+    }
+
+    @Test
+    public void shouldLeaveOutCharactersNotAllowedInXml() {
+        OrderTestObj order = new OrderTestObj();
+        order.test = 1;
+        order.customer = "a\u0000b\u0001\ud800c\ufffe\ud83d\ude00\t";
+        order.initial = '\u0002';
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        factory.createXmlWriter(OrderTestObj.class).write(order, bytes);
+        OrderTestObj parsed = factory.createXmlParser(OrderTestObj.class).parse(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("abc\ud83d\ude00\t", parsed.customer);
+        assertEquals(0, parsed.initial);
+    }
+
+    @Test
+    public void shouldWriteTextLongerThanBuffer() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.append("a&æ");
+        }
+        OrderTestObj order = new OrderTestObj();
+        order.customer = builder.toString();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        factory.createXmlWriter(OrderTestObj.class).write(order, bytes);
+        OrderTestObj parsed = factory.createXmlParser(OrderTestObj.class).parse(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(order.customer, parsed.customer);
+    }
+
+    @Test
+    public void shouldWriteClassNestedInItself() {
+        NodeTestObj leaf = new NodeTestObj("c");
+        NodeTestObj child = new NodeTestObj("b", leaf);
+        TreeTestObj tree = new TreeTestObj();
+        tree.nodes = Arrays.asList(new NodeTestObj("a", child), new NodeTestObj("d"));
+        assertEquals("<tree><node><name>a</name><node><name>b</name><node><name>c</name></node></node></node>"
+                + "<node><name>d</name></node></tree>", factory.createXmlWriter(TreeTestObj.class).write(tree));
+    }
+
+    @Test
+    public void shouldWriteRootElementOfObjectWithoutValues() {
+        assertEquals("<cart/>", factory.createXmlWriter(CartTestObj.class).write(new CartTestObj()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        factory.createXmlWriter(CartTestObj.class).write(new CartTestObj(), bytes);
+        CartTestObj parsed = factory.createXmlParser(CartTestObj.class).parse(new ByteArrayInputStream(bytes.toByteArray()));
+        assertTrue(parsed.items.isEmpty());
+    }
+
+    @Test
+    public void shouldReturnSameWriterForSameClass() {
+        assertSame(factory.createXmlWriter(OrderTestObj.class), factory.createXmlWriter(OrderTestObj.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnsupportedXPath() {
+        factory.createXmlWriter(PredicateTestObj.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSeveralRootElements() {
+        factory.createXmlWriter(TwoRootsTestObj.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNestedClassWithSubtypes() {
+        factory.createXmlWriter(ParserFactorySubtypesTest.ShapesTestObj.class);
+    }
+
+    public static enum Status {
+        NEW("N"), SHIPPED("S");
+
+        @XmlEnumIdentifier
+        private final String code;
+
+        Status(String code) {
+            this.code = code;
+        }
+    }
+
+    public static class OrderTestObj implements TestableObject<Integer> {
+        @XPath("/order/id")
+        private int test;
+        @XPath("/order/customer/name")
+        private String customer;
+        @XPath("/order/status")
+        private Status status;
+        @XPath("/order/tag")
+        private String[] tags;
+        @XPath("/order/data")
+        private byte[] data;
+        @XPath("/order/initial")
+        private char initial;
+
+        public Integer getTest() {
+            return test;
+        }
+    }
+
+    public static class ItemTestObj {
+        @XPath("sku")
+        private String sku;
+        @XPath("count")
+        private int count;
+
+        public ItemTestObj() {
+        }
+
+        ItemTestObj(String sku, int count) {
+            this.sku = sku;
+            this.count = count;
+        }
+    }
+
+    public static class CartTestObj {
+        @XPath("/cart/items/item")
+        private List<ItemTestObj> items;
+    }
+
+    public static class NodeTestObj {
+        @XPath("name")
+        private String name;
+        @XPath("node")
+        private List<NodeTestObj> children;
+
+        public NodeTestObj() {
+        }
+
+        NodeTestObj(String name, NodeTestObj... children) {
+            this.name = name;
+            this.children = Arrays.asList(children);
+        }
+    }
+
+    public static class TreeTestObj {
+        @XPath("/tree/node")
+        private List<NodeTestObj> nodes;
+    }
+
+    public static class PredicateTestObj {
+        @XPath("/order/item[1]")
+        private String first;
+    }
+
+    public static class TwoRootsTestObj {
+        @XPath("/a")
+        private String a;
+        @XPath("/b")
+        private String b;
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.smat.saxxp;
+
+import com.github.smat.saxxp.annotation.XPath;
+import org.apache.commons.io.output.NullOutputStream;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.output.XMLOutputter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the throughput of {@link XmlWriter} with building a JDOM tree and writing it with
+ * XMLOutputter. Not run by the build, run the main method with an optional number of iterations.
+ */
+public class XmlWriterBenchmark {
+    private static final int WARM_UP_ITERATIONS = 20000;
+
+    public static void main(String[] args) throws IOException {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final OrderObj order = createOrder();
+        final XmlWriter<OrderObj> writer = new ParserFactory().createXmlWriter(OrderObj.class);
+        final XMLOutputter outputter = new XMLOutputter();
+        final OutputStream out = new NullOutputStream();
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            writer.write(order, out);
+            outputter.output(toDocument(order), out);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            writer.write(order, out);
+        }
+        report("XmlWriter", iterations, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            outputter.output(toDocument(order), out);
+        }
+        report("JDOM XMLOutputter", iterations, System.nanoTime() - start);
+    }
+
+    private static void report(String name, int iterations, long nanos) {
+        System.out.println(String.format("%-20s %10.0f documents/s", name, iterations * 1e9 / nanos));
+    }
+
+    private static Document toDocument(OrderObj order) {
+        Element root = new Element("order");
+        root.addContent(new Element("id").setText(String.valueOf(order.id)));
+        root.addContent(new Element("customer").addContent(new Element("name").setText(order.customer)));
+        for (LineObj line : order.lines) {
+            Element element = new Element("line");
+            element.addContent(new Element("sku").setText(line.sku));
+            element.addContent(new Element("count").setText(String.valueOf(line.count)));
+            element.addContent(new Element("price").setText(String.valueOf(line.price)));
+            root.addContent(element);
+        }
+        return new Document(root);
+    }
+
+    private static OrderObj createOrder() {
+        OrderObj order = new OrderObj();
+        order.id = 123456;
+        order.customer = "Customer & Sons";
+        order.lines = new ArrayList<LineObj>();
+        for (int i = 0; i < 20; i++) {
+            LineObj line = new LineObj();
+            line.sku = "SKU-" + i;
+            line.count = i;
+            line.price = i * 9.95;
+            order.lines.add(line);
+        }
+        return order;
+    }
+
+    public static class OrderObj {
+        @XPath("/order/id")
+        private long id;
+        @XPath("/order/customer/name")
+        private String customer;
+        @XPath("/order/line")
+        private List<LineObj> lines;
+    }
+
+    public static class LineObj {
+        @XPath("sku")
+        private String sku;
+        @XPath("count")
+        private int count;
+        @XPath("price")
+        private double price;
+    }
+}